@@ -0,0 +1,182 @@
+package com.mongodb.kitchensink;
+
+import com.mongodb.kitchensink.model.UserInfo;
+import com.mongodb.kitchensink.repository.UserInfoRepository;
+import com.mongodb.kitchensink.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of {@code GET /rest/members/{id}} through the whole application
+ * (security filter chain, JwtAuthFilter, UserValidation, service, Jackson) with request
+ * handling on Tomcat's platform-thread pool or on virtual threads. Each request makes one
+ * blocking store call; the view cache is disabled so none are skipped.
+ * <p>
+ * By default the store is an in-memory repository that sleeps {@code storeLatencyMs} per call to
+ * stand in for a MongoDB round trip; pass {@code -p mongoUri=mongodb://...} to use a local mongod
+ * instead (a bench user is upserted there). Read Throughput for ops/ms and SampleTime's p0.99
+ * for latency; the fork traces any carrier-thread pinning to stdout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(400)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class RequestThreadingBenchmark {
+
+    private static final String SECRET = "dGVzdGluZy1qd3Qtc2VjcmV0LXRlc3QxMjM0NTY3ODkwMTIzNDU2";
+    private static final String BENCH_EMAIL = "bench.user@example.com";
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param("100")
+    private long storeLatencyMs;
+
+    // Platform mode only: Tomcat's request pool size (its default is 200)
+    @Param("200")
+    private int tomcatMaxThreads;
+
+    @Param("")
+    private String mongoUri;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void start() {
+        boolean inMemory = mongoUri.isEmpty();
+        Map<String, Object> props = new HashMap<>();
+        props.put("server.port", 0);
+        props.put("spring.threads.virtual.enabled", virtualThreads);
+        props.put("server.tomcat.threads.max", tomcatMaxThreads);
+        props.put("jwt.secret", SECRET);
+        props.put("app.cache.user-views.max-size", 0);
+        props.put("app.cache.user-views.change-stream.enabled", false);
+        // Per-request INFO lines to the console would cost more than the request itself
+        props.put("logging.level.root", "WARN");
+        if (inMemory) {
+            props.put("spring.data.mongodb.uri", "mongodb://localhost:1/bench?serverSelectionTimeoutMS=200");
+            props.put("spring.autoconfigure.exclude", "org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration,"
+                    // Replaces the yml list, so the reactive Mongo exclusions are repeated here
+                    + "org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration,"
+                    + "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration,"
+                    + "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration");
+            props.put("spring.main.allow-bean-definition-overriding", true);
+        } else {
+            props.put("spring.data.mongodb.uri", mongoUri);
+        }
+
+        SpringApplicationBuilder app = new SpringApplicationBuilder(KitchensinkApplication.class);
+        if (inMemory) {
+            InMemoryStore.latencyMs = storeLatencyMs;
+            app.sources(InMemoryStore.class);
+        }
+        // As command-line arguments, so they win over application.yml
+        context = app.run(props.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new));
+
+        String id = inMemory ? InMemoryStore.USER.getId() : upsertBenchUser(context.getBean(MongoTemplate.class));
+        String token = context.getBean(JwtService.class).generateToken(BENCH_EMAIL, "ROLES_USER");
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/rest/members/" + id))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int getUser() throws Exception {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    private static String upsertBenchUser(MongoTemplate mongoTemplate) {
+        Query byEmail = Query.query(Criteria.where("email").is(BENCH_EMAIL));
+        UserInfo user = mongoTemplate.findOne(byEmail, UserInfo.class);
+        if (user == null) {
+            user = mongoTemplate.insert(UserInfo.builder().username("Bench User").email(BENCH_EMAIL)
+                    .phone("9876543210").password("{noop}unused").roles("ROLES_USER").build());
+        }
+        return user.getId();
+    }
+
+    /**
+     * Replaces the MongoDB repository and the startup hooks that need a server. Not a
+     * {@code @Configuration}, so component scanning never picks it up for the mongod runs.
+     */
+    static class InMemoryStore {
+
+        static final UserInfo USER = UserInfo.builder().id("65f000000000000000000001").username("Bench User")
+                .email(BENCH_EMAIL).phone("9876543210").password("{noop}unused").roles("ROLES_USER").version(1L).build();
+        static volatile long latencyMs;
+
+        @Bean
+        public UserInfoRepository userInfoRepository() {
+            return (UserInfoRepository) Proxy.newProxyInstance(UserInfoRepository.class.getClassLoader(),
+                    new Class<?>[]{UserInfoRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "findViewById", "findStampById", "findAccessById" -> lookup(USER.getId().equals(args[0]));
+                        case "findCredentialsByEmail", "findViewByEmail", "findStampByEmail" -> lookup(BENCH_EMAIL.equals(args[0]));
+                        case "toString" -> "InMemoryUserInfoRepository";
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        // Same bean names as MongoIndexConfig and UsernameLowerBackfill, which need a server
+        @Bean
+        public boolean createMongoIndexes() {
+            return true;
+        }
+
+        @Bean
+        public CommandLineRunner usernameLowerBackfill() {
+            return args -> { };
+        }
+
+        private static Optional<UserInfo> lookup(boolean found) throws InterruptedException {
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+            return found ? Optional.of(USER) : Optional.empty();
+        }
+    }
+}
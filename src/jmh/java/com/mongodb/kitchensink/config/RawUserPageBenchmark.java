@@ -0,0 +1,110 @@
+package com.mongodb.kitchensink.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.model.UserInfo;
+import com.mongodb.kitchensink.service.UserInfoServiceImpl;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering one page of users from the bytes the driver received. {@code mappedPage} is the
+ * default path (Document, UserInfo, UserResponse, Jackson bean serialization of the page);
+ * {@code rawPage} is RawUserPageMessageConverter. Run with {@code -prof gc} and compare
+ * gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RawUserPageBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+    private List<byte[]> rows;
+    private PageRequest pageable;
+    private MappingMongoConverter mongoConverter;
+    private RawUserPageMessageConverter rawConverter;
+
+    @Setup
+    public void setUp() {
+        rows = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            BsonDocument user = new BsonDocument("_id", new BsonObjectId())
+                    .append("username", new BsonString("User Number " + i))
+                    .append("email", new BsonString("user" + i + "@example.com"))
+                    .append("phone", new BsonString(String.format("98765%05d", i)))
+                    .append("version", new BsonInt64(i));
+            RawBsonDocument raw = new RawBsonDocument(user, new BsonDocumentCodec());
+            rows.add(Arrays.copyOfRange(raw.getByteBuffer().array(), raw.getByteBuffer().position(), raw.getByteBuffer().limit()));
+        }
+        pageable = PageRequest.of(3, pageSize, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        mongoConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        mongoConverter.setCustomConversions(conversions);
+        mongoConverter.afterPropertiesSet();
+        rawConverter = new RawUserPageMessageConverter(objectMapper);
+    }
+
+    @Benchmark
+    public int mappedPage() throws IOException {
+        DocumentCodec codec = new DocumentCodec();
+        List<UserInfo> users = new ArrayList<>(rows.size());
+        for (byte[] row : rows) {
+            Document doc = codec.decode(new BsonBinaryReader(ByteBuffer.wrap(row)), DecoderContext.builder().build());
+            users.add(mongoConverter.read(UserInfo.class, doc));
+        }
+        CountedPage<UserInfo> page = new CountedPage<>(users, pageable, 1000, false);
+        out.reset();
+        objectMapper.writeValue(out, page.map(UserInfoServiceImpl::mapToResponse));
+        return out.size();
+    }
+
+    @Benchmark
+    public int rawPage() throws IOException {
+        List<RawBsonDocument> docs = new ArrayList<>(rows.size());
+        for (byte[] row : rows) {
+            // The driver's raw codec also copies each row into an array of its own
+            docs.add(new RawBsonDocument(row.clone()));
+        }
+        out.reset();
+        rawConverter.write(new CountedPage<>(docs, pageable, 1000, false), out);
+        return out.size();
+    }
+}
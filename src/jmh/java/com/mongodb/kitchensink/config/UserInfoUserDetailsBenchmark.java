@@ -0,0 +1,50 @@
+package com.mongodb.kitchensink.config;
+
+import com.mongodb.kitchensink.dto.JwtClaims;
+import com.mongodb.kitchensink.model.UserInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the request principal, including splitting the stored role string into authorities:
+ * once per user-details cache miss, or once per request when the principal is built from token
+ * claims.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserInfoUserDetailsBenchmark {
+
+    @Param({"ROLES_USER", "ROLES_USER,ROLES_ADMIN"})
+    private String roles;
+
+    private UserInfo user;
+    private JwtClaims claims;
+
+    @Setup
+    public void setUp() {
+        user = UserInfo.builder().id("652f1c0e9d1b2a3c4d5e6f70").email("user@example.com").password("{bcrypt}hash").roles(roles).build();
+        long now = System.currentTimeMillis();
+        claims = JwtClaims.builder().subject("user@example.com").userId("652f1c0e9d1b2a3c4d5e6f70").roles(roles)
+                .issuedAt(new Date(now)).expiration(new Date(now + 3_600_000L)).build();
+    }
+
+    @Benchmark
+    public UserInfoUserDetails fromUser() {
+        return new UserInfoUserDetails(user);
+    }
+
+    @Benchmark
+    public UserInfoUserDetails fromClaims() {
+        return new UserInfoUserDetails(claims);
+    }
+}
@@ -0,0 +1,62 @@
+package com.mongodb.kitchensink.exception;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building error bodies for the most frequent failures: a validation error with several
+ * field messages, a failed login (which also increments its failure counter) and a not-found.
+ * The exceptions are created once, so only the handler's own work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GlobalExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private MethodArgumentNotValidException invalid;
+    private BadCredentialsException badCredentials;
+    private UserNotFoundException notFound;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+        BeanPropertyBindingResult result = new BeanPropertyBindingResult(new Object(), "userRequest");
+        result.addError(new FieldError("userRequest", "email", "must be a well-formed email address"));
+        result.addError(new FieldError("userRequest", "phone", "Phone number must be 10 digits"));
+        result.addError(new FieldError("userRequest", "password", "Password must be at least 8 characters"));
+        invalid = new MethodArgumentNotValidException(new MethodParameter(Object.class.getMethod("equals", Object.class), 0), result);
+        badCredentials = new BadCredentialsException("Bad credentials");
+        notFound = new UserNotFoundException("User not found!");
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> validation() {
+        return handler.handleValidation(invalid);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> badCredentials() {
+        return handler.handleAuth(badCredentials);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> notFound() {
+        return handler.handleNotFound(notFound);
+    }
+}
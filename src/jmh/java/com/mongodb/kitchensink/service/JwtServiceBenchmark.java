@@ -0,0 +1,86 @@
+package com.mongodb.kitchensink.service;
+
+import com.mongodb.kitchensink.dto.JwtClaims;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token in JwtAuthFilter.
+ * {@code legacyRequest} reproduces the previous filter path: three full parses, each
+ * rebuilding the parser and Base64-decoding the secret.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "dGVzdGluZy1qd3Qtc2VjcmV0LXRlc3QxMjM0NTY3ODkwMTIzNDU2";
+
+    private JwtService jwtService;
+    private UserDetails principal;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expMs", 3_600_000L);
+        token = jwtService.generateToken("user@example.com", "ROLES_USER");
+        principal = User.withUsername("user@example.com").password("x").authorities("ROLES_USER").build();
+    }
+
+    @Benchmark
+    public void legacyRequest(Blackhole bh) {
+        String username = legacyClaims().getSubject();
+        bh.consume(username);
+        boolean valid = legacyClaims().getSubject().equals(principal.getUsername())
+                && !legacyClaims().getExpiration().before(new Date());
+        bh.consume(valid);
+    }
+
+    @Benchmark
+    public boolean singleParseRequest() {
+        JwtClaims claims = jwtService.parseToken(token);
+        return jwtService.validateToken(claims, principal);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtService.validateToken(token, principal);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("user@example.com", "ROLES_USER");
+    }
+
+    private Claims legacyClaims() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,84 @@
+package com.mongodb.kitchensink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.UserResponse;
+import com.mongodb.kitchensink.model.UserInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The mapped listing path once the rows are loaded: {@code mapPage} converts a page of users to
+ * responses, {@code writePage} serializes the mapped page with Jackson and {@code mapAndWritePage}
+ * does both, as {@code GET /rest/members/all} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UserResponseBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    // Same modules as the application's mapper (java.time support)
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+    private CountedPage<UserInfo> users;
+    private Page<UserResponse> responses;
+
+    @Setup
+    public void setUp() {
+        List<UserInfo> rows = new ArrayList<>(pageSize);
+        Instant now = Instant.now();
+        for (int i = 0; i < pageSize; i++) {
+            rows.add(UserInfo.builder()
+                    .id(String.format("652f1c0e9d1b2a3c4d%06d", i))
+                    .username("User Number " + i)
+                    .email("user" + i + "@example.com")
+                    .phone(String.format("98765%05d", i))
+                    .roles("ROLES_USER")
+                    .version((long) i)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+        users = new CountedPage<>(rows, PageRequest.of(3, pageSize, Sort.by(Sort.Direction.DESC, "createdAt")), 1000, true);
+        responses = users.map(UserInfoServiceImpl::mapToResponse);
+    }
+
+    @Benchmark
+    public Page<UserResponse> mapPage() {
+        return users.map(UserInfoServiceImpl::mapToResponse);
+    }
+
+    @Benchmark
+    public int writePage() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, responses);
+        return out.size();
+    }
+
+    @Benchmark
+    public int mapAndWritePage() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, users.map(UserInfoServiceImpl::mapToResponse));
+        return out.size();
+    }
+}
@@ -0,0 +1,46 @@
+package com.mongodb.kitchensink.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalization applied to every registration, import row, search and login.
+ * {@code legacyNormPhone} is the previous {@code String.replaceAll} form, which compiles the
+ * pattern on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NormalizerBenchmark {
+
+    private final String email = "  John.Smith@Example.COM ";
+
+    // Only the phone benchmarks are run once per format
+    @State(Scope.Benchmark)
+    public static class Phone {
+        @Param({"(987)-654-3210", "9876543210"})
+        String value;
+    }
+
+    @Benchmark
+    public String normEmail() {
+        return Normalizer.normEmail(email);
+    }
+
+    @Benchmark
+    public String normPhone(Phone phone) {
+        return Normalizer.normPhone(phone.value);
+    }
+
+    @Benchmark
+    public String legacyNormPhone(Phone phone) {
+        return phone.value.replaceAll("\\D+", "");
+    }
+}
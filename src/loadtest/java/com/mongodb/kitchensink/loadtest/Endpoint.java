@@ -0,0 +1,25 @@
+package com.mongodb.kitchensink.loadtest;
+
+/**
+ * One kind of call the generator makes; results are reported per endpoint.
+ */
+public enum Endpoint {
+    LOGIN("login"),
+    ME("me"),
+    ALL("all"),
+    SEARCH("search"),
+    SIGNUP("signup"),
+    UPDATE("update"),
+    BY_EMAIL("by-email"),
+    DELETE("delete");
+
+    private final String key;
+
+    Endpoint(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+}
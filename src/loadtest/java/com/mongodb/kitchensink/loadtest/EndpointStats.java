@@ -0,0 +1,140 @@
+package com.mongodb.kitchensink.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Results for one endpoint, in microseconds.
+ * <p>
+ * {@code latency} runs from the moment the request was scheduled to be sent, so time spent
+ * queued behind a slow server is counted even when the generator itself had to wait; this is
+ * the coordinated-omission correction for an open (constant arrival rate) model.
+ * {@code serviceTime} runs from the actual send and is what a closed-loop tool would report;
+ * a widening gap between the two means requests are queueing.
+ * <p>
+ * A request rejected because too many were outstanding still counts in {@code latency}, at the
+ * request timeout: dropping it would hide exactly the overload the open model is meant to show.
+ * It has no service time, so {@link #requests()} counts only requests that were sent.
+ */
+class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Endpoint endpoint;
+    private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private volatile String lastErrorMessage;
+
+    EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @param status HTTP status, or 0 when no response arrived
+     */
+    void record(long intendedNanos, long sentNanos, long doneNanos, int status, String failure) {
+        latency.recordValue(Math.min(toMicros(doneNanos - intendedNanos), HIGHEST_TRACKABLE_MICROS));
+        serviceTime.recordValue(Math.min(toMicros(doneNanos - sentNanos), HIGHEST_TRACKABLE_MICROS));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status < 200 || status >= 300) {
+            errors.increment();
+            if (failure != null) {
+                lastErrorMessage = failure;
+            }
+        }
+    }
+
+    /** Not sent because too many requests were already outstanding; counted as a timed-out request. */
+    void rejected(long timeoutNanos) {
+        latency.recordValue(Math.min(toMicros(timeoutNanos), HIGHEST_TRACKABLE_MICROS));
+        rejected.increment();
+    }
+
+    /** Not sent because its precondition was missing (e.g. nothing left to delete). */
+    void skipped() {
+        skipped.increment();
+    }
+
+    long requests() {
+        return serviceTime.getTotalCount();
+    }
+
+    long rejectedCount() {
+        return rejected.sum();
+    }
+
+    boolean isEmpty() {
+        return requests() == 0 && rejected.sum() == 0 && skipped.sum() == 0;
+    }
+
+    Histogram latency() {
+        return latency;
+    }
+
+    Map<String, Object> toJson(double measuredSeconds) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("requests", requests());
+        json.put("errors", errors.sum());
+        json.put("rejected", rejected.sum());
+        json.put("skipped", skipped.sum());
+        json.put("throughputPerSec", round(requests() / measuredSeconds));
+        Map<String, Long> byStatus = new TreeMap<>();
+        statuses.forEach((status, count) -> byStatus.put(String.valueOf(status), count.sum()));
+        json.put("statuses", byStatus);
+        if (lastErrorMessage != null) {
+            json.put("lastError", lastErrorMessage);
+        }
+        json.put("latencyMs", percentiles(latency));
+        json.put("serviceTimeMs", percentiles(serviceTime));
+        // Full histogram so runs can be merged or plotted later (HdrHistogram compressed, base64)
+        json.put("latencyHistogram", encode(latency));
+        return json;
+    }
+
+    static Map<String, Object> percentiles(Histogram h) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("mean", round(h.getMean() / 1000.0));
+        json.put("p50", millis(h.getValueAtPercentile(50)));
+        json.put("p90", millis(h.getValueAtPercentile(90)));
+        json.put("p99", millis(h.getValueAtPercentile(99)));
+        json.put("p99.9", millis(h.getValueAtPercentile(99.9)));
+        json.put("max", millis(h.getMaxValue()));
+        return json;
+    }
+
+    private static String encode(Histogram h) {
+        ByteBuffer buffer = ByteBuffer.allocate(h.getNeededByteBufferCapacity());
+        int length = h.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    Endpoint endpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,217 @@
+package com.mongodb.kitchensink.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Accounts and request bodies for a run. Seed users are registered (or reused from an earlier
+ * run) and signed in before measuring starts, so the measured mix contains only the traffic the
+ * workload describes.
+ */
+class Fixture {
+
+    static final String PASSWORD = "Load@Test1";
+
+    private static final String[] FIRST_NAMES = {"Aarav", "Maya", "Rohan", "Priya", "Liam", "Olivia", "Noah", "Emma", "Arjun", "Sara",
+            "Kabir", "Ananya", "Ethan", "Isha", "Lucas", "Zara"};
+
+    record SeedUser(String email, String firstName, String id, String token) {
+    }
+
+    /** A request plus what to do with a successful response. */
+    record Call(HttpRequest request, Consumer<HttpResponse<String>> onSuccess) {
+        Call(HttpRequest request) {
+            this(request, response -> { });
+        }
+    }
+
+    private final HttpClient client;
+    private final URI base;
+    private final Duration timeout;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong signups = new AtomicLong();
+    // Accounts created by this run's signups, oldest first; deletes consume them
+    private final Queue<String> signedUp = new ConcurrentLinkedQueue<>();
+    private List<SeedUser> users = List.of();
+    private String adminToken;
+
+    Fixture(HttpClient client, URI base, Duration timeout) {
+        this.client = client;
+        this.base = base;
+        this.timeout = timeout;
+    }
+
+    void seed(int count, int parallelism) throws Exception {
+        List<Future<SeedUser>> pending = new ArrayList<>(count);
+        try (ExecutorService pool = Executors.newFixedThreadPool(parallelism)) {
+            for (int i = 0; i < count; i++) {
+                int n = i;
+                pending.add(pool.submit(() -> seedUser(n)));
+            }
+        }
+        List<SeedUser> seeded = new ArrayList<>(count);
+        for (Future<SeedUser> f : pending) {
+            seeded.add(f.get());
+        }
+        users = List.copyOf(seeded);
+    }
+
+    private SeedUser seedUser(int n) throws IOException, InterruptedException {
+        String email = "loadtest.user" + n + "@example.com";
+        String firstName = FIRST_NAMES[n % FIRST_NAMES.length];
+        HttpResponse<String> registered = send(post("/auth/register-user",
+                Map.of("username", firstName + " " + letters(n), "email", email, "phone", phone(n), "password", PASSWORD)));
+        // 409: already registered by an earlier run, which is fine
+        if (registered.statusCode() != 201 && registered.statusCode() != 409) {
+            throw new IllegalStateException("Registering " + email + " failed: " + registered.statusCode() + " " + registered.body());
+        }
+        String token = login(email, PASSWORD);
+        HttpResponse<String> me = send(authorized(get("/rest/members/me"), token).build());
+        if (me.statusCode() != 200) {
+            throw new IllegalStateException("Reading " + email + " failed: " + me.statusCode() + " " + me.body());
+        }
+        return new SeedUser(email, firstName, mapper.readTree(me.body()).path("id").asText(), token);
+    }
+
+    void signInAdmin(String email, String password) throws IOException, InterruptedException {
+        adminToken = login(email, password);
+    }
+
+    private String login(String email, String password) throws IOException, InterruptedException {
+        HttpResponse<String> res = send(post("/auth/login", Map.of("email", email, "password", password)));
+        JsonNode token = res.statusCode() == 200 ? mapper.readTree(res.body()).get("token") : null;
+        if (token == null || token.asText().isEmpty()) {
+            throw new IllegalStateException("Login as " + email + " failed: " + res.statusCode() + " " + res.body());
+        }
+        return token.asText();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    int seededUsers() {
+        return users.size();
+    }
+
+    /**
+     * The call for one scheduled request, or null when it cannot be made yet (nothing to delete).
+     * {@link Endpoint#DELETE} returns the by-email lookup; {@link #delete} builds the second step.
+     */
+    Call call(Endpoint endpoint, RandomGenerator random) {
+        SeedUser user = users.get(random.nextInt(users.size()));
+        return switch (endpoint) {
+            case LOGIN -> new Call(post("/auth/login", Map.of("email", user.email(), "password", PASSWORD)));
+            case ME -> new Call(authorized(get("/rest/members/me"), user.token()).build());
+            case ALL -> new Call(authorized(get("/rest/members/all?page=" + random.nextInt(5) + "&size=10"), adminToken).build());
+            case SEARCH -> new Call(authorized(get(searchPath(random)), adminToken).build());
+            case SIGNUP -> {
+                String email = "loadtest." + runId + "." + signups.incrementAndGet() + "@example.com";
+                String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + letters(random.nextInt(100_000));
+                yield new Call(post("/auth/register-user", Map.of("username", name, "email", email, "phone", phone(random.nextInt(100_000_000)),
+                        "password", PASSWORD)), response -> signedUp.add(email));
+            }
+            case UPDATE -> new Call(authorized(HttpRequest.newBuilder(uri("/rest/members/" + user.id())), user.token())
+                    .header("Content-Type", "application/json")
+                    .PUT(body(Map.of("name", user.firstName() + " " + letters(random.nextInt(100_000)))))
+                    .build());
+            case DELETE, BY_EMAIL -> {
+                String email = signedUp.poll();
+                yield email == null ? null
+                        : new Call(authorized(get("/rest/members/by-email?email=" + encode(email)), adminToken).build());
+            }
+        };
+    }
+
+    /**
+     * Second step of a delete: removes the user the by-email lookup returned.
+     */
+    HttpRequest delete(HttpResponse<String> lookup) throws IOException {
+        String id = mapper.readTree(lookup.body()).path("id").asText();
+        return authorized(HttpRequest.newBuilder(uri("/rest/members/" + id)), adminToken).DELETE().build();
+    }
+
+    /**
+     * What the admin search box sends: the debounce fires once per typing pause, so each call
+     * carries a prefix of a real name or email of some length, on either field.
+     */
+    private String searchPath(RandomGenerator random) {
+        SeedUser target = users.get(random.nextInt(users.size()));
+        boolean byName = random.nextBoolean();
+        String term = byName ? target.firstName() : target.email();
+        String prefix = term.substring(0, 1 + random.nextInt(Math.min(term.length(), byName ? 5 : 12)));
+        String field = byName ? "name" : "email";
+        return "/rest/members/search?field=" + field + "&" + field + "=" + encode(prefix) + "&page=0&size=10";
+    }
+
+    private HttpRequest post(String path, Map<String, String> json) {
+        return HttpRequest.newBuilder(uri(path)).timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(body(json))
+                .build();
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET();
+    }
+
+    private HttpRequest.Builder authorized(HttpRequest.Builder builder, String token) {
+        return builder.timeout(timeout).header("Authorization", "Bearer " + token);
+    }
+
+    private HttpRequest.BodyPublisher body(Map<String, String> json) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(json));
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private URI uri(String path) {
+        return base.resolve(path);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    // Names may only contain letters, spaces and underscores
+    private static String letters(int n) {
+        StringBuilder sb = new StringBuilder();
+        do {
+            sb.append((char) ('a' + n % 26));
+            n /= 26;
+        } while (n > 0);
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        while (sb.length() < 3) {
+            sb.append('x');
+        }
+        return sb.toString();
+    }
+
+    // 10 digits starting with 9, as the phone validation requires
+    private static String phone(int n) {
+        return "9" + String.format("%09d", 100_000_000 + n % 900_000_000);
+    }
+}
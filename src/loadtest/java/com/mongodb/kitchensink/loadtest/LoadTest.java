@@ -0,0 +1,242 @@
+package com.mongodb.kitchensink.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for a running instance.
+ * <p>
+ * Requests are scheduled at a constant arrival rate and sent without waiting for earlier ones
+ * to finish, as independent users would. A slow server therefore builds a queue rather than
+ * quietly lowering the offered load, and each request's latency is measured from its scheduled
+ * send time (see {@link EndpointStats}).
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--workload=mixed --rate=200 --duration=60s"
+ * </pre>
+ */
+public class LoadTest {
+
+    private final Options options;
+    private final HttpClient client;
+    private final Fixture fixture;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final Semaphore inFlight;
+
+    LoadTest(Options options) {
+        this.options = options;
+        // HTTP/1.1 as browsers use against a plain-HTTP server, without an h2c upgrade on every request
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.fixture = new Fixture(client, options.url(), options.timeout());
+        for (Endpoint e : Endpoint.values()) {
+            stats.put(e, new EndpointStats(e));
+        }
+        this.inFlight = new Semaphore(options.maxInFlight());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        if (options == null) {
+            System.out.println(Options.USAGE);
+            return;
+        }
+        if (!new LoadTest(options).run()) {
+            // Fail the Maven build too, so a saturated run is not mistaken for a valid result
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return false when the generator rejected requests, i.e. the results do not describe the offered rate
+     */
+    boolean run() throws Exception {
+        Workload workload = options.workload();
+        System.out.printf("Seeding %d users against %s%n", options.users(), options.url());
+        fixture.seed(options.users(), 8);
+        if (workload.needsAdmin()) {
+            if (options.adminPassword() == null) {
+                throw new IllegalArgumentException("Workload " + workload.key() + " needs --admin-email and --admin-password");
+            }
+            fixture.signInAdmin(options.adminEmail(), options.adminPassword());
+        }
+
+        System.out.printf("Running %s at %d req/s for %ds after %ds warm-up%n", workload.key(), options.rate(),
+                options.duration().toSeconds(), options.warmup().toSeconds());
+        Instant startedAt = Instant.now();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        SplittableRandom random = new SplittableRandom(options.seed());
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // A generator that fell behind sends immediately and keeps the original schedule
+            dispatch(workload.pick(random), intended, intended >= measureFrom, random);
+        }
+
+        // Let outstanding requests finish so the slowest ones are not dropped from the results
+        if (!inFlight.tryAcquire(options.maxInFlight(), options.timeout().toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+            System.out.println("Some requests were still outstanding at the end of the run");
+        }
+
+        Report report = new Report(options, startedAt, options.duration().toNanos() / 1e9, stats);
+        report.print();
+        Path written = report.write();
+        System.out.println("Results written to " + written);
+        if (options.baseline() != null) {
+            report.compare(options.baseline());
+        }
+        return !report.saturated();
+    }
+
+    private void dispatch(Endpoint endpoint, long intended, boolean measured, SplittableRandom random) {
+        Fixture.Call call = fixture.call(endpoint, random);
+        EndpointStats target = measured ? stats.get(endpoint) : null;
+        if (call == null) {
+            if (target != null) {
+                target.skipped();
+            }
+            return;
+        }
+        if (!inFlight.tryAcquire()) {
+            if (target != null) {
+                target.rejected(options.timeout().toNanos());
+            }
+            return;
+        }
+        CompletableFuture<HttpResponse<String>> response;
+        if (endpoint == Endpoint.DELETE) {
+            // Look the signup up by email, then delete it; both steps count from the scheduled time
+            response = send(Endpoint.BY_EMAIL, call, intended, measured)
+                    .thenCompose(lookup -> lookup == null || lookup.statusCode() != 200
+                            ? CompletableFuture.completedFuture(null)
+                            : send(Endpoint.DELETE, new Fixture.Call(deleteRequest(lookup)), intended, measured));
+        } else {
+            response = send(endpoint, call, intended, measured);
+        }
+        response.whenComplete((r, ex) -> inFlight.release());
+    }
+
+    private HttpRequest deleteRequest(HttpResponse<String> lookup) {
+        try {
+            return fixture.delete(lookup);
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(Endpoint endpoint, Fixture.Call call, long intended, boolean measured) {
+        long sent = System.nanoTime();
+        return client.sendAsync(call.request(), HttpResponse.BodyHandlers.ofString())
+                .handle((response, ex) -> {
+                    long done = System.nanoTime();
+                    int status = response == null ? 0 : response.statusCode();
+                    if (measured) {
+                        String failure = ex != null ? ex.getClass().getSimpleName() + ": " + ex.getMessage()
+                                : status >= 300 ? response.body() : null;
+                        stats.get(endpoint).record(intended, sent, done, status, failure);
+                    }
+                    if (response != null && status >= 200 && status < 300) {
+                        call.onSuccess().accept(response);
+                    }
+                    return response;
+                });
+    }
+
+    record Options(URI url, Workload workload, int rate, Duration duration, Duration warmup, int users,
+                   String adminEmail, String adminPassword, int maxInFlight, Duration timeout, long seed,
+                   Path out, Path baseline) {
+
+        static final String USAGE = """
+                Options (all --name=value):
+                  --url             base URL of the running app                        (default http://localhost:9092)
+                  --workload        login-storm | dashboard | admin | writes | mixed   (default mixed)
+                  --rate            requests per second, constant arrival rate         (default 50)
+                  --duration        measured time, e.g. 60s or 5m                      (default 60s)
+                  --warmup          unmeasured time before that                        (default 10s)
+                  --users           seed users to register and sign in                 (default 50)
+                  --admin-email     admin account for paging, search and deletes
+                                    (default $APP_BOOTSTRAP_ADMIN_EMAIL or john.smith@mailinator.com)
+                  --admin-password  (default $APP_BOOTSTRAP_ADMIN_PASSWORD)
+                  --max-in-flight   outstanding requests before new ones are rejected  (default 2000)
+                  --timeout         per-request timeout                                (default 30s)
+                  --seed            random seed, so the same mix is replayed           (default 42)
+                  --out             directory for the JSON results                     (default target/loadtest)
+                  --baseline        earlier results file to compare against
+                """;
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (arg.equals("--help") || arg.equals("-h")) {
+                    return null;
+                }
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --name=value but got " + arg + "\n" + USAGE);
+                }
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+            String adminEmail = values.getOrDefault("admin-email", env("APP_BOOTSTRAP_ADMIN_EMAIL", "john.smith@mailinator.com"));
+            String baseline = values.get("baseline");
+            Options options = new Options(
+                    URI.create(values.getOrDefault("url", "http://localhost:9092")),
+                    Workload.from(values.getOrDefault("workload", "mixed")),
+                    Integer.parseInt(values.getOrDefault("rate", "50")),
+                    duration(values.getOrDefault("duration", "60s")),
+                    duration(values.getOrDefault("warmup", "10s")),
+                    Integer.parseInt(values.getOrDefault("users", "50")),
+                    adminEmail,
+                    values.getOrDefault("admin-password", env("APP_BOOTSTRAP_ADMIN_PASSWORD", null)),
+                    Integer.parseInt(values.getOrDefault("max-in-flight", "2000")),
+                    duration(values.getOrDefault("timeout", "30s")),
+                    Long.parseLong(values.getOrDefault("seed", "42")),
+                    Path.of(values.getOrDefault("out", "target/loadtest")),
+                    baseline == null ? null : Path.of(baseline));
+            if (options.rate() <= 0 || options.users() <= 0 || options.maxInFlight() <= 0) {
+                throw new IllegalArgumentException("--rate, --users and --max-in-flight must be positive");
+            }
+            return options;
+        }
+
+        private static Duration duration(String value) {
+            String v = value.trim().toLowerCase(Locale.ROOT);
+            if (v.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+            }
+            if (v.endsWith("m")) {
+                return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+            }
+            return Duration.ofSeconds(Long.parseLong(v.endsWith("s") ? v.substring(0, v.length() - 1) : v));
+        }
+
+        private static String env(String name, String fallback) {
+            String value = System.getenv(name);
+            return value == null || value.isBlank() ? fallback : value;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.mongodb.kitchensink.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Console summary, JSON results file and comparison against an earlier results file.
+ */
+class Report {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final LoadTest.Options options;
+    private final Instant startedAt;
+    private final double measuredSeconds;
+    private final Map<Endpoint, EndpointStats> stats;
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    Report(LoadTest.Options options, Instant startedAt, double measuredSeconds, Map<Endpoint, EndpointStats> stats) {
+        this.options = options;
+        this.startedAt = startedAt;
+        this.measuredSeconds = measuredSeconds;
+        this.stats = stats;
+    }
+
+    void print() {
+        System.out.printf("%n%-9s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99");
+        for (EndpointStats s : stats.values()) {
+            if (s.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> json = s.toJson(measuredSeconds);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> latency = (Map<String, Object>) json.get("latencyMs");
+            @SuppressWarnings("unchecked")
+            Map<String, Object> service = (Map<String, Object>) json.get("serviceTimeMs");
+            System.out.printf("%-9s %9.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", s.endpoint().key(),
+                    (double) json.get("throughputPerSec"), (long) json.get("errors") + (long) json.get("rejected"),
+                    latency.get("p50"), latency.get("p90"), latency.get("p99"), latency.get("p99.9"), latency.get("max"), service.get("p99"));
+        }
+        Histogram total = total();
+        System.out.printf("%-9s %9.1f %7s %9.2f %9.2f %9.2f %9.2f %9.2f%n", "total", (total.getTotalCount() - rejected()) / measuredSeconds, "",
+                total.getValueAtPercentile(50) / 1000.0, total.getValueAtPercentile(90) / 1000.0, total.getValueAtPercentile(99) / 1000.0,
+                total.getValueAtPercentile(99.9) / 1000.0, total.getMaxValue() / 1000.0);
+        if (saturated()) {
+            System.out.println(saturationWarning());
+        }
+    }
+
+    /**
+     * Whether the generator hit --max-in-flight and rejected requests. Rejections are in the
+     * latency at the timeout, but the run did not deliver the offered rate and is not a valid result.
+     */
+    boolean saturated() {
+        return rejected() > 0;
+    }
+
+    private long rejected() {
+        return stats.values().stream().mapToLong(EndpointStats::rejectedCount).sum();
+    }
+
+    private String saturationWarning() {
+        return String.format("WARNING: %d requests were rejected at --max-in-flight=%d and are counted at the %ds timeout; "
+                + "the server could not keep up with %d req/s", rejected(), options.maxInFlight(), options.timeout().toSeconds(), options.rate());
+    }
+
+    Path write() throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("workload", options.workload().key());
+        json.put("url", options.url().toString());
+        json.put("startedAt", startedAt.toString());
+        json.put("targetRatePerSec", options.rate());
+        json.put("durationSec", measuredSeconds);
+        json.put("warmupSec", options.warmup().toSeconds());
+        json.put("seedUsers", options.users());
+        json.put("seed", options.seed());
+        json.put("saturated", saturated());
+        if (saturated()) {
+            json.put("warning", saturationWarning());
+        }
+        Histogram total = total();
+        long sent = total.getTotalCount() - rejected();
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("requests", sent);
+        totals.put("rejected", rejected());
+        totals.put("throughputPerSec", EndpointStats.round(sent / measuredSeconds));
+        totals.put("latencyMs", EndpointStats.percentiles(total));
+        json.put("total", totals);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (EndpointStats s : stats.values()) {
+            if (!s.isEmpty()) {
+                endpoints.put(s.endpoint().key(), s.toJson(measuredSeconds));
+            }
+        }
+        json.put("endpoints", endpoints);
+
+        Files.createDirectories(options.out());
+        Path file = options.out().resolve(options.workload().key() + "-" + FILE_TIME.format(startedAt) + ".json");
+        mapper.writeValue(file.toFile(), json);
+        return file;
+    }
+
+    /**
+     * Prints throughput and p99 latency against an earlier run, per endpoint present in both.
+     * Endpoints with rejected requests in either run are marked, since their numbers are not comparable.
+     */
+    void compare(Path baselineFile) throws IOException {
+        JsonNode baseline = mapper.readTree(baselineFile.toFile());
+        if (!options.workload().key().equals(baseline.path("workload").asText())) {
+            System.out.printf("Note: baseline ran workload %s%n", baseline.path("workload").asText());
+        }
+        System.out.printf("%nCompared with %s%n%-9s %10s %10s %8s %10s %10s %8s%n", baselineFile,
+                "endpoint", "req/s was", "req/s now", "change", "p99 was", "p99 now", "change");
+        boolean anyRejected = false;
+        JsonNode before = baseline.path("endpoints");
+        for (Iterator<String> it = before.fieldNames(); it.hasNext(); ) {
+            String key = it.next();
+            EndpointStats now = stats.values().stream().filter(s -> s.endpoint().key().equals(key)).findFirst().orElse(null);
+            if (now == null || now.isEmpty()) {
+                continue;
+            }
+            double rateBefore = before.path(key).path("throughputPerSec").asDouble();
+            double p99Before = before.path(key).path("latencyMs").path("p99").asDouble();
+            double rateNow = now.requests() / measuredSeconds;
+            double p99Now = now.latency().getValueAtPercentile(99) / 1000.0;
+            boolean rejected = now.rejectedCount() > 0 || before.path(key).path("rejected").asLong() > 0;
+            anyRejected |= rejected;
+            System.out.printf("%-9s %10.1f %10.1f %8s %10.2f %10.2f %8s%s%n", key,
+                    rateBefore, rateNow, change(rateBefore, rateNow), p99Before, p99Now, change(p99Before, p99Now), rejected ? "  *" : "");
+        }
+        if (anyRejected) {
+            System.out.println("* rejected requests in this run or the baseline (saturated); the change is not a valid comparison");
+        }
+        if (baseline.path("saturated").asBoolean()) {
+            System.out.println("WARNING: the baseline run was saturated");
+        }
+    }
+
+    private static String change(double before, double now) {
+        return before == 0 ? "n/a" : String.format("%+.1f%%", (now - before) * 100.0 / before);
+    }
+
+    private Histogram total() {
+        Histogram total = new Histogram(3);
+        for (EndpointStats s : stats.values()) {
+            // A delete's lookup is already inside the delete's latency
+            if (s.endpoint() != Endpoint.BY_EMAIL) {
+                total.add(s.latency());
+            }
+        }
+        return total;
+    }
+}
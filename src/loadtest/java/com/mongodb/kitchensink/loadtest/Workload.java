@@ -0,0 +1,71 @@
+package com.mongodb.kitchensink.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Synthetic traffic mixes. Each scheduled request picks its endpoint by weight, so the mix holds
+ * at any rate. {@code BY_EMAIL} is never picked directly: it is the lookup half of a delete.
+ */
+public enum Workload {
+    /** Everyone signing in at once, e.g. after a deploy logged all sessions out; bound by BCrypt. */
+    LOGIN_STORM(Map.of(Endpoint.LOGIN, 90, Endpoint.ME, 10)),
+    /** Open dashboards refreshing the current user. */
+    DASHBOARD(Map.of(Endpoint.ME, 95, Endpoint.LOGIN, 5)),
+    /** Admins paging the member list and typing into the search box. */
+    ADMIN(Map.of(Endpoint.ALL, 40, Endpoint.SEARCH, 55, Endpoint.ME, 5)),
+    /** Account churn: signups, profile edits and admin deletes of those signups. */
+    WRITES(Map.of(Endpoint.SIGNUP, 40, Endpoint.UPDATE, 40, Endpoint.DELETE, 20)),
+    /** A day-shaped blend of all of the above. */
+    MIXED(Map.of(Endpoint.ME, 50, Endpoint.SEARCH, 15, Endpoint.ALL, 10, Endpoint.LOGIN, 10,
+            Endpoint.UPDATE, 7, Endpoint.SIGNUP, 5, Endpoint.DELETE, 3));
+
+    private final Endpoint[] endpoints;
+    private final int[] cumulative;
+    private final int total;
+
+    Workload(Map<Endpoint, Integer> weights) {
+        Map<Endpoint, Integer> ordered = new EnumMap<>(weights);
+        endpoints = ordered.keySet().toArray(new Endpoint[0]);
+        cumulative = new int[endpoints.length];
+        int sum = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            sum += ordered.get(endpoints[i]);
+            cumulative[i] = sum;
+        }
+        total = sum;
+    }
+
+    public Endpoint pick(RandomGenerator random) {
+        int r = random.nextInt(total);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (r < cumulative[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    public boolean uses(Endpoint endpoint) {
+        for (Endpoint e : endpoints) {
+            if (e == endpoint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean needsAdmin() {
+        return uses(Endpoint.ALL) || uses(Endpoint.SEARCH) || uses(Endpoint.DELETE);
+    }
+
+    public static Workload from(String value) {
+        return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    public String key() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
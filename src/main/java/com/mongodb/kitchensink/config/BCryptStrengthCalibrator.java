@@ -0,0 +1,45 @@
+package com.mongodb.kitchensink.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Picks the highest BCrypt work factor whose verify time stays within a target latency on the
+ * current hardware. Each extra strength step doubles the cost, so probing stops at the first
+ * strength over the target.
+ */
+@Slf4j
+public final class BCryptStrengthCalibrator {
+
+    private static final String SAMPLE = "Calibrat10n@Sample";
+
+    private BCryptStrengthCalibrator() {
+        // Prevent instantiation
+    }
+
+    public static int calibrate(long targetVerifyMs, int minStrength, int maxStrength) {
+        int chosen = minStrength;
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+            long elapsedMs = measureVerifyMs(strength);
+            log.debug("BCrypt strength {} verifies in {} ms", strength, elapsedMs);
+            if (elapsedMs > targetVerifyMs) {
+                break;
+            }
+            chosen = strength;
+        }
+        return chosen;
+    }
+
+    private static long measureVerifyMs(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        String hash = encoder.encode(SAMPLE);
+        long best = Long.MAX_VALUE;
+        // Best of two runs filters out JIT warm-up and scheduling noise
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            encoder.matches(SAMPLE, hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000;
+    }
+}
@@ -0,0 +1,133 @@
+package com.mongodb.kitchensink.config;
+
+import com.mongodb.kitchensink.exception.PasswordHashingUnavailableException;
+import com.mongodb.kitchensink.util.Constants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing and verification on a dedicated, core-sized pool with a bounded queue,
+ * so a login or signup burst cannot occupy every request thread with BCrypt work. When the
+ * queue is full the call fails fast with {@link PasswordHashingUnavailableException} (503).
+ * <p>
+ * The pool stays on platform threads when request handling runs on virtual threads: BCrypt is
+ * pure CPU work, and this pool is then the only thing bounding how much of it runs at once.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final String OP_ENCODE = "encode";
+    private static final String OP_MATCHES = "matches";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final Counter rejected;
+    private final Timer encodeWait;
+    private final Timer encodeTime;
+    private final Timer matchesWait;
+    private final Timer matchesTime;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long retryAfterSeconds, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.rejected = Counter.builder("password.hash.rejected")
+                .description("Hashing calls rejected because the hashing queue was full")
+                .register(registry);
+        this.encodeWait = timer(registry, "password.hash.queue.wait", OP_ENCODE);
+        this.encodeTime = timer(registry, "password.hash.duration", OP_ENCODE);
+        this.matchesWait = timer(registry, "password.hash.queue.wait", OP_MATCHES);
+        this.matchesTime = timer(registry, "password.hash.duration", OP_MATCHES);
+        ExecutorServiceMetrics.monitor(registry, executor, "password-hashing");
+        log.info("Password hashing pool started with {} threads and queue capacity {}", threads, queueCapacity);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(encodeWait, encodeTime, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesWait, matchesTime, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Only inspects the hash prefix; cheap enough to stay on the caller thread
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Timer queueWait, Timer hashTime, Callable<T> work) {
+        final long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return work.call();
+                } finally {
+                    hashTime.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new PasswordHashingUnavailableException(Constants.LOGIN_CAPACITY_EXCEEDED, retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException(Constants.LOGIN_CAPACITY_EXCEEDED, retryAfterSeconds);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String operation) {
+        return Timer.builder(name)
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "password-hash-" + sequence.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
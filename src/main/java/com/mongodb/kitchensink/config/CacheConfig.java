@@ -0,0 +1,69 @@
+package com.mongodb.kitchensink.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching(proxyTargetClass = true)
+public class CacheConfig {
+
+    public static final String USER_DETAILS = "userDetails";
+    public static final String USER_COUNTS = "userCounts";
+    public static final String USER_VIEWS = "userViews";
+    public static final String USER_EMAIL_IDS = "userEmailIds";
+
+    @Value("${app.cache.user-details.max-size:10000}")
+    private long userDetailsMaxSize;
+
+    @Value("${app.cache.user-details.ttl:5m}")
+    private Duration userDetailsTtl;
+
+    @Value("${app.cache.user-counts.max-size:1000}")
+    private long userCountsMaxSize;
+
+    @Value("${app.cache.user-counts.ttl:60s}")
+    private Duration userCountsTtl;
+
+    @Value("${app.cache.user-views.max-size:10000}")
+    private long userViewsMaxSize;
+
+    @Value("${app.cache.user-views.ttl:5m}")
+    private Duration userViewsTtl;
+
+    // Each cache is registered up front with its own bounds so that actuator binds
+    // hit/miss/eviction metrics (cache.gets, cache.evictions) for it at startup.
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(USER_DETAILS, Caffeine.newBuilder()
+                .maximumSize(userDetailsMaxSize)
+                .expireAfterWrite(userDetailsTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(USER_COUNTS, Caffeine.newBuilder()
+                .maximumSize(userCountsMaxSize)
+                .expireAfterWrite(userCountsTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(USER_VIEWS, Caffeine.newBuilder()
+                .maximumSize(userViewsMaxSize)
+                .expireAfterWrite(userViewsTtl)
+                .recordStats()
+                .build());
+        // Emails never change, so this mapping cannot go stale; it only needs the same bounds
+        cacheManager.registerCustomCache(USER_EMAIL_IDS, Caffeine.newBuilder()
+                .maximumSize(userViewsMaxSize)
+                .expireAfterWrite(userViewsTtl)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
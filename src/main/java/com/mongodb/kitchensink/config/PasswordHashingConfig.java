@@ -0,0 +1,60 @@
+package com.mongodb.kitchensink.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+@Configuration
+@Slf4j
+public class PasswordHashingConfig {
+
+    public static final String BCRYPT_ID = "bcrypt";
+
+    @Value("${app.password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${app.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.password-hashing.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    // 0 = calibrate at startup against target-verify-ms
+    @Value("${app.password-hashing.strength:0}")
+    private int strength;
+
+    @Value("${app.password-hashing.target-verify-ms:50}")
+    private long targetVerifyMs;
+
+    @Value("${app.password-hashing.min-strength:10}")
+    private int minStrength;
+
+    @Value("${app.password-hashing.max-strength:14}")
+    private int maxStrength;
+
+    @Bean
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int cost = strength > 0 ? strength : BCryptStrengthCalibrator.calibrate(targetVerifyMs, minStrength, maxStrength);
+        log.info("Using BCrypt strength {} (target verify {} ms)", cost, targetVerifyMs);
+        Gauge.builder("password.hash.strength", () -> cost)
+                .description("BCrypt work factor used for new hashes")
+                .register(meterRegistry);
+
+        // New hashes are stored as {bcrypt}$2a$<cost>$...; legacy unprefixed BCrypt hashes still
+        // verify and are reported by upgradeEncoding so they get rehashed on the next login.
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(cost);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(delegating, poolSize, queueCapacity, retryAfterSeconds, meterRegistry);
+    }
+}
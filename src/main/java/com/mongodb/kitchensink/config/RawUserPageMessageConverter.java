@@ -0,0 +1,300 @@
+package com.mongodb.kitchensink.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.RawUserPage;
+import org.bson.BsonSerializationException;
+import org.bson.ByteBuf;
+import org.bson.RawBsonDocument;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link RawUserPage} as the same JSON that Jackson produces for a
+ * {@code CountedPage<UserResponse>}, reading each row straight from its BSON bytes. String values
+ * are copied as UTF-8 into the generator and the ObjectId is hex-encoded into a reused buffer, so
+ * a row costs no entity, response object or Java strings.
+ * <p>
+ * Fields are expected in the types {@code UserInfo} is stored with (strings, an ObjectId or
+ * string id, an integer version); anything else fails the response rather than being guessed at.
+ */
+@Component
+@Profile("!reactive")
+public class RawUserPageMessageConverter extends AbstractHttpMessageConverter<RawUserPage> {
+
+    private static final byte[][] BSON_NAMES = {
+            bytes("_id"), bytes("username"), bytes("email"), bytes("phone"), bytes("version")};
+    private static final int ID = 0, NAME = 1, EMAIL = 2, PHONE = 3, VERSION = 4;
+    private static final SerializableString[] JSON_NAMES = {
+            name("id"), name("name"), name("email"), name("phone"), name("version")};
+
+    private static final SerializableString CONTENT = name("content");
+    private static final SerializableString PAGEABLE = name("pageable");
+    private static final SerializableString PAGE_NUMBER = name("pageNumber");
+    private static final SerializableString PAGE_SIZE = name("pageSize");
+    private static final SerializableString SORT = name("sort");
+    private static final SerializableString OFFSET = name("offset");
+    private static final SerializableString PAGED = name("paged");
+    private static final SerializableString UNPAGED = name("unpaged");
+    private static final SerializableString TOTAL_EXACT = name("totalExact");
+    private static final SerializableString TOTAL_ELEMENTS = name("totalElements");
+    private static final SerializableString TOTAL_PAGES = name("totalPages");
+    private static final SerializableString LAST = name("last");
+    private static final SerializableString SIZE = name("size");
+    private static final SerializableString NUMBER = name("number");
+    private static final SerializableString FIRST = name("first");
+    private static final SerializableString NUMBER_OF_ELEMENTS = name("numberOfElements");
+    private static final SerializableString EMPTY = name("empty");
+    private static final SerializableString SORTED = name("sorted");
+    private static final SerializableString UNSORTED = name("unsorted");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final JsonFactory jsonFactory;
+
+    public RawUserPageMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RawUserPage.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected RawUserPage readInternal(Class<? extends RawUserPage> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Raw user pages are write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(RawUserPage page, HttpOutputMessage outputMessage) throws IOException {
+        write(page.page(), outputMessage.getBody());
+    }
+
+    void write(CountedPage<RawBsonDocument> page, OutputStream out) throws IOException {
+        try (JsonGenerator gen = jsonFactory.createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writePage(page, gen);
+        }
+    }
+
+    // Property order matches Jackson's bean serialization of CountedPage
+    private static void writePage(CountedPage<RawBsonDocument> page, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(CONTENT);
+        gen.writeStartArray();
+        int[] at = new int[BSON_NAMES.length];
+        char[] hex = new char[24];
+        for (RawBsonDocument doc : page.getContent()) {
+            writeUser(doc, gen, at, hex);
+        }
+        gen.writeEndArray();
+
+        Pageable pageable = page.getPageable();
+        gen.writeFieldName(PAGEABLE);
+        gen.writeStartObject();
+        gen.writeFieldName(PAGE_NUMBER);
+        gen.writeNumber(pageable.getPageNumber());
+        gen.writeFieldName(PAGE_SIZE);
+        gen.writeNumber(pageable.getPageSize());
+        writeSort(pageable.getSort(), gen);
+        gen.writeFieldName(OFFSET);
+        gen.writeNumber(pageable.getOffset());
+        gen.writeFieldName(PAGED);
+        gen.writeBoolean(pageable.isPaged());
+        gen.writeFieldName(UNPAGED);
+        gen.writeBoolean(pageable.isUnpaged());
+        gen.writeEndObject();
+
+        gen.writeFieldName(TOTAL_EXACT);
+        gen.writeBoolean(page.isTotalExact());
+        gen.writeFieldName(TOTAL_ELEMENTS);
+        gen.writeNumber(page.getTotalElements());
+        gen.writeFieldName(TOTAL_PAGES);
+        gen.writeNumber(page.getTotalPages());
+        gen.writeFieldName(LAST);
+        gen.writeBoolean(page.isLast());
+        gen.writeFieldName(SIZE);
+        gen.writeNumber(page.getSize());
+        gen.writeFieldName(NUMBER);
+        gen.writeNumber(page.getNumber());
+        writeSort(page.getSort(), gen);
+        gen.writeFieldName(FIRST);
+        gen.writeBoolean(page.isFirst());
+        gen.writeFieldName(NUMBER_OF_ELEMENTS);
+        gen.writeNumber(page.getNumberOfElements());
+        gen.writeFieldName(EMPTY);
+        gen.writeBoolean(page.isEmpty());
+        gen.writeEndObject();
+    }
+
+    private static void writeSort(Sort sort, JsonGenerator gen) throws IOException {
+        gen.writeFieldName(SORT);
+        gen.writeStartObject();
+        gen.writeFieldName(EMPTY);
+        gen.writeBoolean(sort.isEmpty());
+        gen.writeFieldName(SORTED);
+        gen.writeBoolean(sort.isSorted());
+        gen.writeFieldName(UNSORTED);
+        gen.writeBoolean(sort.isUnsorted());
+        gen.writeEndObject();
+    }
+
+    /**
+     * One pass over the top-level elements records where each wanted field starts; the fields
+     * are then written in response order, whatever order they were stored in.
+     */
+    private static void writeUser(RawBsonDocument doc, JsonGenerator gen, int[] at, char[] hex) throws IOException {
+        ByteBuf buf = doc.getByteBuffer();
+        byte[] b = buf.array();
+        int start = buf.position();
+        int end = start + readInt(b, start) - 1;
+
+        Arrays.fill(at, -1);
+        int pos = start + 4;
+        while (pos < end) {
+            byte type = b[pos];
+            int nameStart = pos + 1;
+            int nameEnd = nameStart;
+            while (b[nameEnd] != 0) nameEnd++;
+            int field = field(b, nameStart, nameEnd - nameStart);
+            if (field >= 0) at[field] = pos;
+            int value = nameEnd + 1;
+            pos = value + valueLength(b, type, value);
+        }
+
+        gen.writeStartObject();
+        gen.writeFieldName(JSON_NAMES[ID]);
+        writeId(b, at[ID], gen, hex);
+        for (int f = NAME; f <= PHONE; f++) {
+            gen.writeFieldName(JSON_NAMES[f]);
+            writeString(b, at[f], f, gen);
+        }
+        writeVersion(b, at[VERSION], gen);
+        gen.writeEndObject();
+    }
+
+    private static int field(byte[] b, int offset, int length) {
+        for (int f = 0; f < BSON_NAMES.length; f++) {
+            if (Arrays.equals(BSON_NAMES[f], 0, BSON_NAMES[f].length, b, offset, offset + length)) {
+                return f;
+            }
+        }
+        return -1;
+    }
+
+    private static int valueOffset(int element, int field) {
+        return element + 1 + BSON_NAMES[field].length + 1;
+    }
+
+    private static void writeId(byte[] b, int element, JsonGenerator gen, char[] hex) throws IOException {
+        if (element < 0 || b[element] == 0x0A) {
+            gen.writeNull();
+            return;
+        }
+        int value = valueOffset(element, ID);
+        switch (b[element]) {
+            case 0x07 -> {
+                for (int i = 0; i < 12; i++) {
+                    hex[2 * i] = HEX[(b[value + i] >> 4) & 0xF];
+                    hex[2 * i + 1] = HEX[b[value + i] & 0xF];
+                }
+                gen.writeString(hex, 0, 24);
+            }
+            case 0x02 -> gen.writeUTF8String(b, value + 4, readInt(b, value) - 1);
+            default -> throw unexpected(ID, b[element]);
+        }
+    }
+
+    private static void writeString(byte[] b, int element, int field, JsonGenerator gen) throws IOException {
+        if (element < 0 || b[element] == 0x0A) {
+            gen.writeNull();
+        } else if (b[element] == 0x02) {
+            int value = valueOffset(element, field);
+            gen.writeUTF8String(b, value + 4, readInt(b, value) - 1);
+        } else {
+            throw unexpected(field, b[element]);
+        }
+    }
+
+    // UserResponse omits a null version
+    private static void writeVersion(byte[] b, int element, JsonGenerator gen) throws IOException {
+        if (element < 0 || b[element] == 0x0A) {
+            return;
+        }
+        int value = valueOffset(element, VERSION);
+        gen.writeFieldName(JSON_NAMES[VERSION]);
+        switch (b[element]) {
+            case 0x12 -> gen.writeNumber(readLong(b, value));
+            case 0x10 -> gen.writeNumber(readInt(b, value));
+            default -> throw unexpected(VERSION, b[element]);
+        }
+    }
+
+    private static BsonSerializationException unexpected(int field, byte type) {
+        return new BsonSerializationException("Unexpected BSON type 0x" + Integer.toHexString(type & 0xFF)
+                + " for user field " + new String(BSON_NAMES[field], StandardCharsets.UTF_8));
+    }
+
+    // Size of an element's value by BSON type, for skipping fields that are not rendered
+    private static int valueLength(byte[] b, byte type, int value) {
+        return switch (type) {
+            case 0x01, 0x09, 0x11, 0x12 -> 8;
+            case 0x02, 0x0D, 0x0E -> 4 + readInt(b, value);
+            case 0x03, 0x04, 0x0F -> readInt(b, value);
+            case 0x05 -> 5 + readInt(b, value);
+            case 0x06, 0x0A, 0x7F, (byte) 0xFF -> 0;
+            case 0x07 -> 12;
+            case 0x08 -> 1;
+            case 0x0B -> {
+                int p = value;
+                while (b[p] != 0) p++;
+                p++;
+                while (b[p] != 0) p++;
+                yield p + 1 - value;
+            }
+            case 0x0C -> 4 + readInt(b, value) + 12;
+            case 0x10 -> 4;
+            case 0x13 -> 16;
+            default -> throw new BsonSerializationException("Unknown BSON type 0x" + Integer.toHexString(type & 0xFF));
+        };
+    }
+
+    private static int readInt(byte[] b, int p) {
+        return (b[p] & 0xFF) | (b[p + 1] & 0xFF) << 8 | (b[p + 2] & 0xFF) << 16 | (b[p + 3] & 0xFF) << 24;
+    }
+
+    private static long readLong(byte[] b, int p) {
+        return (readInt(b, p) & 0xFFFFFFFFL) | (long) readInt(b, p + 4) << 32;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static SerializableString name(String s) {
+        return new SerializedString(s);
+    }
+}
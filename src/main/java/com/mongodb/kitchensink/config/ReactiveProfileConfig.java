@@ -0,0 +1,50 @@
+package com.mongodb.kitchensink.config;
+
+import com.mongodb.kitchensink.model.UserInfo;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.config.EnableReactiveMongoAuditing;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.ReactiveSortHandlerMethodArgumentResolver;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+import reactor.core.publisher.Mono;
+
+/**
+ * What the reactive profile needs that Spring Boot only sets up for the servlet stack or the
+ * blocking driver: Pageable and Sort controller arguments, auditing of createdAt/updatedAt and
+ * the {@code usernameLower} copy maintained by {@link UserInfoBeforeConvertCallback}. Also pins
+ * the server to Netty, which Spring Boot would otherwise pass over for Tomcat (on the classpath
+ * for the servlet stack).
+ */
+@Configuration
+@Profile("reactive")
+@EnableReactiveMongoAuditing
+public class ReactiveProfileConfig implements WebFluxConfigurer {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        ReactiveSortHandlerMethodArgumentResolver sortResolver = new ReactiveSortHandlerMethodArgumentResolver();
+        configurer.addCustomResolver(sortResolver, new ReactivePageableHandlerMethodArgumentResolver(sortResolver));
+    }
+
+    // An anonymous class rather than a lambda, so the entity type can be resolved for callback dispatch
+    @Bean
+    public ReactiveBeforeConvertCallback<UserInfo> reactiveUserInfoBeforeConvertCallback(UserInfoBeforeConvertCallback callback) {
+        return new ReactiveBeforeConvertCallback<>() {
+            @Override
+            public Publisher<UserInfo> onBeforeConvert(UserInfo user, String collection) {
+                return Mono.just(callback.onBeforeConvert(user, collection));
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.mongodb.kitchensink.config;
+
+import com.mongodb.kitchensink.filter.JwtAuthWebFilter;
+import com.mongodb.kitchensink.service.JwtService;
+import com.mongodb.kitchensink.util.Constants;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.AndServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+
+/**
+ * WebFlux equivalent of {@link SecurityConfig}: the same public paths, CORS rules and stateless
+ * bearer-token authentication, with login checked by a reactive authentication manager.
+ */
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    private final JwtService jwtService;
+    private final PasswordEncoder passwordEncoder;
+    private final ReactiveUserInfoUserDetailsService userDetailsService;
+
+    public ReactiveSecurityConfig(JwtService jwtService, PasswordEncoder passwordEncoder, ReactiveUserInfoUserDetailsService userDetailsService) {
+        this.jwtService = jwtService;
+        this.passwordEncoder = passwordEncoder;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         @Value("${jwt.claims-principal.enabled:false}") boolean claimsPrincipalEnabled,
+                                                         @Value("${jwt.claims-principal.max-age-ms:300000}") long claimsPrincipalMaxAgeMs,
+                                                         @Value("${server.port:8080}") int serverPort,
+                                                         @Value("${management.server.port:-1}") int managementPort) {
+        JwtAuthWebFilter authFilter = new JwtAuthWebFilter(jwtService, userDetailsService, claimsPrincipalEnabled, claimsPrincipalMaxAgeMs);
+        ServerWebExchangeMatcher scrape = new AndServerWebExchangeMatcher(
+                ServerWebExchangeMatchers.pathMatchers(HttpMethod.GET, SecurityConfig.PROMETHEUS_PATH),
+                exchange -> SecurityConfig.isSeparatePort(serverPort, managementPort) && isLocalPort(exchange, managementPort)
+                        ? ServerWebExchangeMatcher.MatchResult.match()
+                        : ServerWebExchangeMatcher.MatchResult.notMatch());
+        return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .cors(Customizer.withDefaults())
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .authorizeExchange(
+                        auth -> auth
+                                .pathMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                                .pathMatchers(SecurityConfig.PUBLIC_PATHS).permitAll()
+                                .pathMatchers("/actuator/health").permitAll()
+                                .matchers(scrape).permitAll()
+                                .pathMatchers("/actuator/**").hasAuthority(Constants.ROLES_ADMIN)
+                                .anyExchange().authenticated())
+                // Stateless: nothing is saved between requests
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                // 403 without a valid token, as the servlet chain answers
+                .exceptionHandling(e -> e.authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+                .addFilterAt(authFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    private static boolean isLocalPort(ServerWebExchange exchange, int port) {
+        InetSocketAddress local = exchange.getRequest().getLocalAddress();
+        return local != null && local.getPort() == port;
+    }
+
+    /**
+     * Verifies login passwords off the event loop (on Reactor's bounded elastic scheduler, where
+     * waiting for the bounded hashing pool is allowed) and rehashes stale hashes after a
+     * successful login.
+     */
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager() {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager = new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        authenticationManager.setUserDetailsPasswordService(userDetailsService);
+        return authenticationManager;
+    }
+
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        UrlBasedCorsConfigurationSource src = new UrlBasedCorsConfigurationSource();
+        src.registerCorsConfiguration("/**", SecurityConfig.corsConfiguration());
+        return src;
+    }
+}
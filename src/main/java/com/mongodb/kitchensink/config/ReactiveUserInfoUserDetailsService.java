@@ -0,0 +1,83 @@
+package com.mongodb.kitchensink.config;
+
+import com.mongodb.kitchensink.model.UserInfo;
+import com.mongodb.kitchensink.repository.ReactiveUserInfoRepository;
+import com.mongodb.kitchensink.util.Normalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link UserInfoUserDetailsService}. Principals are kept in the same
+ * {@link CacheConfig#USER_DETAILS} cache under the normalized email; the in-memory cache is read
+ * and written directly, since no lookup here may block.
+ */
+@Component
+@Profile("reactive")
+@Slf4j
+public class ReactiveUserInfoUserDetailsService implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+
+    private final ReactiveUserInfoRepository userRepo;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Cache userDetails;
+
+    public ReactiveUserInfoUserDetailsService(ReactiveUserInfoRepository userRepo, ReactiveMongoTemplate mongoTemplate, CacheManager cacheManager) {
+        this.userRepo = userRepo;
+        this.mongoTemplate = mongoTemplate;
+        this.userDetails = cacheManager.getCache(CacheConfig.USER_DETAILS);
+    }
+
+    /**
+     * Empty when no user has this email.
+     */
+    @Override
+    public Mono<UserDetails> findByUsername(String email) {
+        String key = Normalizer.normEmail(email);
+        if (key == null) {
+            return Mono.empty();
+        }
+        UserDetails cached = userDetails.get(key, UserDetails.class);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return userRepo.findCredentialsByEmail(key)
+                .<UserDetails>map(UserInfoUserDetails::new)
+                .doOnNext(details -> userDetails.put(key, details));
+    }
+
+    /**
+     * Same as {@link UserInfoUserDetailsService#updatePassword}: the write is not awaited, only
+     * applies if the stored hash is still the one that was verified, leaves the version alone,
+     * and the cached principal is dropped once it has finished.
+     */
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails user, String newPassword) {
+        final String email = user.getUsername();
+        Query query = Query.query(Criteria.where("email").is(email).and("password").is(user.getPassword()));
+        mongoTemplate.updateFirst(query, Update.update("password", newPassword), mongoTemplate.getCollectionName(UserInfo.class))
+                .doFinally(signal -> userDetails.evict(email))
+                .subscribe(result -> log.info("Password hash upgraded for email = {} (modified = {})", email, result.getModifiedCount()),
+                        ex -> log.warn("Password hash upgrade failed for email = {}: {}", email, ex.getMessage()));
+        return Mono.just(user instanceof UserInfoUserDetails details ? details.withPassword(newPassword) : user);
+    }
+
+    /**
+     * Drops the cached principal so password or role changes apply on the next request.
+     */
+    public void evict(String email) {
+        String key = Normalizer.normEmail(email);
+        if (key != null) {
+            userDetails.evict(key);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.mongodb.kitchensink.config;
 
 import com.mongodb.kitchensink.filter.JwtAuthFilter;
+import com.mongodb.kitchensink.util.Constants;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -12,8 +16,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -24,30 +26,45 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import java.util.List;
 
 @Configuration
+@Profile("!reactive")
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
+    // Reachable without a token; shared with ReactiveSecurityConfig
+    static final String[] PUBLIC_PATHS = {"/rest/members/check", "/auth/register-user", "/auth/login", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/swagger-resources/**", "/webjars/**", "/", "/login", "/signup", "/app.js", "/styles.css", "/static/**", "/user/dashboard", "/admin/dashboard"};
+
+    static final String PROMETHEUS_PATH = "/actuator/prometheus";
+
     private final JwtAuthFilter authFilter;
+    private final PasswordEncoder passwordEncoder;
+    private final UserInfoUserDetailsService userDetailsService;
 
-    public SecurityConfig(JwtAuthFilter authFilter) {
+    public SecurityConfig(JwtAuthFilter authFilter, PasswordEncoder passwordEncoder, UserInfoUserDetailsService userDetailsService) {
         this.authFilter = authFilter;
+        this.passwordEncoder = passwordEncoder;
+        this.userDetailsService = userDetailsService;
     }
 
     @Bean
-    public UserDetailsService userDetailsService() {
-        return new UserInfoUserDetailsService();
-    }
-
-    @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   @Value("${server.port:8080}") int serverPort,
+                                                   @Value("${management.server.port:-1}") int managementPort) throws Exception {
+        boolean scrapePortSeparate = isSeparatePort(serverPort, managementPort);
         return http.csrf(csrf -> csrf.disable())
                 .cors(Customizer.withDefaults())
                 .authorizeHttpRequests(
                         auth -> auth
                                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                                .requestMatchers( "/rest/members/check", "/auth/register-user", "/auth/login", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/swagger-resources/**", "/webjars/**", "/", "/login", "/signup", "/app.js", "/styles.css", "/static/**", "/user/dashboard", "/admin/dashboard")
+                                // Streaming responses finish on an async dispatch; the original request was already authorized
+                                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                                .requestMatchers(PUBLIC_PATHS)
                 .permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // Scrapers carry no user token, so the scrape is open only on the internal management port
+                .requestMatchers(request -> scrapePortSeparate && request.getLocalPort() == managementPort
+                        && PROMETHEUS_PATH.equals(request.getRequestURI())).permitAll()
+                .requestMatchers("/actuator/**").hasAuthority(Constants.ROLES_ADMIN)
                 .anyRequest().authenticated())
                 .sessionManagement(
                         s ->
@@ -56,16 +73,13 @@ public class SecurityConfig {
                 .addFilterBefore(authFilter, UsernamePasswordAuthenticationFilter.class).build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
-        authenticationProvider.setUserDetailsService(userDetailsService());
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setUserDetailsService(userDetailsService);
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        // Rehash stale (legacy or lower-cost) hashes after a successful login
+        authenticationProvider.setUserDetailsPasswordService(userDetailsService);
         return authenticationProvider;
     }
 
@@ -76,6 +90,20 @@ public class SecurityConfig {
 
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
+        UrlBasedCorsConfigurationSource src = new UrlBasedCorsConfigurationSource();
+        src.registerCorsConfiguration("/**", corsConfiguration());
+        return src;
+    }
+
+    /**
+     * Whether actuator runs on its own port. Only then is the Prometheus scrape left open; on the
+     * application port it needs an admin token like the other actuator endpoints.
+     */
+    static boolean isSeparatePort(int serverPort, int managementPort) {
+        return managementPort > 0 && managementPort != serverPort;
+    }
+
+    static CorsConfiguration corsConfiguration() {
         CorsConfiguration cfg = new CorsConfiguration();
         // ⚠️ With credentials, you CANNOT use "*" for origins
         cfg.setAllowedOrigins(List.of("http://localhost:5173","http://127.0.0.1:5173"));
@@ -83,8 +111,6 @@ public class SecurityConfig {
         cfg.setAllowedHeaders(List.of("*"));
         cfg.setExposedHeaders(List.of("Authorization","Location"));
         cfg.setAllowCredentials(true); // <— needed for cookies
-        UrlBasedCorsConfigurationSource src = new UrlBasedCorsConfigurationSource();
-        src.registerCorsConfiguration("/**", cfg);
-        return src;
+        return cfg;
     }
 }
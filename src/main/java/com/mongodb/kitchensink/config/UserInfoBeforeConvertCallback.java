@@ -0,0 +1,20 @@
+package com.mongodb.kitchensink.config;
+
+import com.mongodb.kitchensink.model.UserInfo;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Keeps {@code usernameLower} in sync with {@code username} on every save, insert and bulk insert.
+ */
+@Component
+public class UserInfoBeforeConvertCallback implements BeforeConvertCallback<UserInfo> {
+
+    @Override
+    public UserInfo onBeforeConvert(UserInfo user, String collection) {
+        user.setUsernameLower(user.getUsername() == null ? null : user.getUsername().toLowerCase(Locale.ROOT));
+        return user;
+    }
+}
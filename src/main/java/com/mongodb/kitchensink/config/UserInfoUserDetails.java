@@ -1,5 +1,6 @@
 package com.mongodb.kitchensink.config;
 
+import com.mongodb.kitchensink.dto.JwtClaims;
 import com.mongodb.kitchensink.model.UserInfo;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -12,19 +13,61 @@ import java.util.stream.Collectors;
 
 public class UserInfoUserDetails implements UserDetails {
 
+    private String id;
     private String username;
     private String password;
+    private String roles;
     private List<GrantedAuthority> authorities;
 
 
     public UserInfoUserDetails(UserInfo userInfo) {
+        id = userInfo.getId();
         username = userInfo.getEmail();
         password = userInfo.getPassword();
-        authorities = Arrays.stream(userInfo.getRoles().split(","))
+        roles = userInfo.getRoles();
+        authorities = toAuthorities(roles);
+    }
+
+    /**
+     * Principal rebuilt from verified token claims; carries no password.
+     */
+    public UserInfoUserDetails(JwtClaims claims) {
+        id = claims.getUserId();
+        username = claims.getSubject();
+        password = null;
+        roles = claims.getRoles();
+        authorities = toAuthorities(roles);
+    }
+
+    private UserInfoUserDetails(UserInfoUserDetails source, String password) {
+        this.id = source.id;
+        this.username = source.username;
+        this.password = password;
+        this.roles = source.roles;
+        this.authorities = source.authorities;
+    }
+
+    public UserInfoUserDetails withPassword(String newPassword) {
+        return new UserInfoUserDetails(this, newPassword);
+    }
+
+    private static List<GrantedAuthority> toAuthorities(String roles) {
+        if (roles == null || roles.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(roles.split(","))
                 .map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
     }
 
+    public String getId() {
+        return id;
+    }
+
+    public String getRoles() {
+        return roles;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -2,26 +2,85 @@ package com.mongodb.kitchensink.config;
 
 import com.mongodb.kitchensink.model.UserInfo;
 import com.mongodb.kitchensink.repository.UserInfoRepository;
+import com.mongodb.kitchensink.util.Normalizer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 @Component
-public class UserInfoUserDetailsService implements UserDetailsService {
+@Slf4j
+public class UserInfoUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserInfoRepository userInfoRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor taskExecutor;
+
+    @Autowired
+    private CacheManager cacheManager;
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.USER_DETAILS, key = "T(com.mongodb.kitchensink.util.Normalizer).normEmail(#email)")
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        Optional<UserInfo> userInfo = userInfoRepository.findByEmail(email);
+        Optional<UserInfo> userInfo = userInfoRepository.findCredentialsByEmail(Normalizer.normEmail(email));
 
         return userInfo.map(UserInfoUserDetails::new)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found! : " +email));
     }
+
+    /**
+     * Called by DaoAuthenticationProvider after a successful login whose stored hash uses an
+     * outdated format or cost. The write happens in the background so the login is not delayed,
+     * and only applies if the stored hash is still the one that was verified. It goes through the
+     * collection name rather than the entity so the rehash does not bump the user's version, and
+     * the cached principal is dropped once the write has finished instead of being replaced up
+     * front, so the cache never holds a hash the database does not.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        final String email = user.getUsername();
+        final String oldPassword = user.getPassword();
+        taskExecutor.execute(() -> {
+            try {
+                Query query = Query.query(Criteria.where("email").is(email).and("password").is(oldPassword));
+                long modified = mongoTemplate.updateFirst(query, Update.update("password", newPassword),
+                        mongoTemplate.getCollectionName(UserInfo.class)).getModifiedCount();
+                log.info("Password hash upgraded for email = {} (modified = {})", email, modified);
+            } catch (RuntimeException ex) {
+                log.warn("Password hash upgrade failed for email = {}: {}", email, ex.getMessage());
+            } finally {
+                cacheManager.getCache(CacheConfig.USER_DETAILS).evict(email);
+            }
+        });
+        return user instanceof UserInfoUserDetails details ? details.withPassword(newPassword) : user;
+    }
+
+    /**
+     * Drops the cached principal so password or role changes apply on the next request.
+     */
+    @CacheEvict(cacheNames = CacheConfig.USER_DETAILS, key = "T(com.mongodb.kitchensink.util.Normalizer).normEmail(#email)")
+    public void evict(String email) {
+        // eviction handled by @CacheEvict
+    }
 }
@@ -0,0 +1,48 @@
+package com.mongodb.kitchensink.controller;
+
+import com.mongodb.kitchensink.dto.AuthRequest;
+import com.mongodb.kitchensink.dto.UserRequest;
+import com.mongodb.kitchensink.service.ReactiveAuthService;
+import com.mongodb.kitchensink.service.ReactiveUserInfoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Same endpoints and responses as {@link AuthController}, for the reactive profile.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/auth")
+@CrossOrigin(origins = "*")
+@Tag(name = "Authentication", description = "Endpoints for user registration and login")
+public class ReactiveAuthController {
+
+    private final ReactiveUserInfoService service;
+    private final ReactiveAuthService authService;
+
+    public ReactiveAuthController(ReactiveUserInfoService service, ReactiveAuthService authService) {
+        this.service = service;
+        this.authService = authService;
+    }
+
+    @PostMapping("/register-user")
+    @Operation(summary = "Register a new user", description = "Creates a new user account with encoded password")
+    public Mono<ResponseEntity<Map<String, String>>> register(@Valid @RequestBody UserRequest userRequest) {
+        return service.createUser(userRequest)
+                .thenReturn(ResponseEntity.status(HttpStatus.CREATED).body(Map.of("message", "User registered successfully")));
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<Map<String, String>>> login(@Valid @RequestBody AuthRequest authRequest) {
+        return authService.login(authRequest)
+                .map(token -> ResponseEntity.ok(Map.of("token", token, "type", "Bearer")));
+    }
+}
@@ -0,0 +1,209 @@
+package com.mongodb.kitchensink.controller;
+
+import com.mongodb.kitchensink.dto.UserResponse;
+import com.mongodb.kitchensink.dto.UserUpdateRequest;
+import com.mongodb.kitchensink.service.ReactiveUserInfoService;
+import com.mongodb.kitchensink.service.UserValidation;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.SortDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * The member endpoints of {@link UserController} for the reactive profile, with the same paths,
+ * parameters, access rules and response bodies.
+ * <p>
+ * {@code /all} and {@code /search} also answer {@code Accept: application/x-ndjson} by streaming
+ * every match, one user per line, in the requested sort order. The stream is demand-driven: the
+ * cursor is read only as fast as the client consumes the response.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/rest/members")
+@CrossOrigin(
+        origins = "http://localhost:5173",
+        allowCredentials = "true",
+        allowedHeaders = {"*"},
+        exposedHeaders = {"ETag", "Last-Modified"},
+        methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.PATCH, RequestMethod.DELETE, RequestMethod.OPTIONS}
+)
+@Tag(name = "User Management", description = "APIs for creating, updating, fetching, and deleting users")
+@Slf4j
+public class ReactiveUserController {
+
+    private final ReactiveUserInfoService service;
+    private final UserValidation validation;
+
+    public ReactiveUserController(ReactiveUserInfoService service, UserValidation validation) {
+        this.service = service;
+        this.validation = validation;
+    }
+
+    // -------- PUBLIC ENDPOINTS --------
+
+    @GetMapping("/check")
+    public Mono<String> healthCheck() {
+        return Mono.just("API is working!");
+    }
+
+    // -------- PROTECTED ENDPOINTS --------
+
+    @GetMapping("/all")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Get paginated list of users",
+            description = "Returns users in paginated format. Pass cursor (empty for the first page) to get a cursor page "
+                    + "with nextCursor instead of page numbers and totals.")
+    public Mono<?> getAllUsers(
+            @PageableDefault(page = 0, size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String cursor,
+            Authentication authentication) {
+        log.info("Fetching users with pagination: page={}, size={}, cursorMode={}", pageable.getPageNumber(), pageable.getPageSize(), cursor != null);
+        validation.validateAdmin(authentication);
+        if (cursor != null) {
+            return service.scroll(null, null, null, null, cursor, pageable.getPageSize());
+        }
+        return service.search(null, null, null, null, pageable);
+    }
+
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Stream all users", description = "Every user as NDJSON, newest first unless sort is given.")
+    public Flux<UserResponse> streamAllUsers(
+            @SortDefault(sort = "createdAt", direction = Sort.Direction.DESC) Sort sort,
+            Authentication authentication) {
+        log.info("Streaming all users");
+        validation.validateAdmin(authentication);
+        return service.stream(null, null, null, null, sort);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get user by ID",
+            description = "Fetches a single user by their unique ID. Supports If-None-Match / If-Modified-Since.")
+    @SecurityRequirement(name = "bearerAuth")
+    public Mono<ResponseEntity<UserResponse>> getUserDetails(@PathVariable String id, Authentication authentication, ServerWebExchange exchange) {
+        log.info("Fetching user with ID: {}", id);
+        Mono<ResponseEntity<UserResponse>> full = service.getById(id).map(target -> {
+            validation.validateReadAdminOrUser(target, authentication);
+            return UserController.validators(ResponseEntity.ok(), target).body(target);
+        });
+        if (!isConditional(exchange)) {
+            return full;
+        }
+        return service.getStampById(id).flatMap(stamp -> {
+            validation.validateReadAdminOrUser(stamp, authentication);
+            if (notModified(stamp, exchange)) {
+                return Mono.just(UserController.validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), stamp).<UserResponse>build());
+            }
+            return full;
+        });
+    }
+
+    @PutMapping("/{id}")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Update an existing user",
+            description = "Sets only the supplied fields in one atomic write. Pass the version from a previous read to reject concurrent edits.")
+    public Mono<UserResponse> updateUser(@PathVariable String id, @Valid @RequestBody UserUpdateRequest req, Authentication authentication) {
+        log.info("Updating user with Email: {}", req.getEmail());
+        return service.update(id, validation.ownerScope(authentication), req);
+    }
+
+    @DeleteMapping("/{id}")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Delete user by ID", description = "Removes a user from the system (Admin only)")
+    public Mono<ResponseEntity<Void>> deleteUser(@PathVariable String id, Authentication authentication) {
+        log.info("Deleting user with ID: {}", id);
+        return service.delete(id, validation.ownerScope(authentication))
+                .thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @GetMapping("/me")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Get the current user", description = "Supports If-None-Match / If-Modified-Since.")
+    public Mono<ResponseEntity<UserResponse>> getCurrentUser(Authentication authentication, ServerWebExchange exchange) {
+        log.info("Fetching current user: {}", authentication.getName());
+        Mono<ResponseEntity<UserResponse>> full = service.getByEmail(authentication.getName())
+                .map(me -> UserController.validators(ResponseEntity.ok(), me).body(me));
+        if (!isConditional(exchange)) {
+            return full;
+        }
+        return service.getStampByEmail(authentication.getName()).flatMap(stamp -> notModified(stamp, exchange)
+                ? Mono.just(UserController.validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), stamp).<UserResponse>build())
+                : full);
+    }
+
+    @GetMapping("/search")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(
+            summary = "Search users",
+            description = "Search by email and/or name prefix (case-insensitive). Optionally filter by created date range. "
+                    + "Pass cursor (empty for the first page) for cursor paging."
+    )
+    public Mono<?> searchUsers(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false, name = "name") String name,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @PageableDefault(page = 0, size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String cursor,
+            Authentication authentication) {
+        validation.validateAdmin(authentication);
+        UserController.requireFilter(email, name, from, to);
+        if (cursor != null) {
+            return service.scroll(email, name, UserController.startOf(from), UserController.endOf(to), cursor, pageable.getPageSize());
+        }
+        return service.search(email, name, UserController.startOf(from), UserController.endOf(to), pageable);
+    }
+
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Stream search results", description = "Every match of a search as NDJSON.")
+    public Flux<UserResponse> streamSearch(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false, name = "name") String name,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @SortDefault(sort = "createdAt", direction = Sort.Direction.DESC) Sort sort,
+            Authentication authentication) {
+        validation.validateAdmin(authentication);
+        UserController.requireFilter(email, name, from, to);
+        return service.stream(email, name, UserController.startOf(from), UserController.endOf(to), sort);
+    }
+
+    @GetMapping("/by-email")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Get user by email", description = "Exact email match.")
+    public Mono<UserResponse> getByEmailExact(@RequestParam String email, Authentication authentication) {
+        validation.validateAdmin(authentication);
+        return service.getByEmail(email);
+    }
+
+    // -------- CONDITIONAL GET --------
+
+    private static boolean isConditional(ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        return headers.getFirst(HttpHeaders.IF_NONE_MATCH) != null || headers.getFirst(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    private static boolean notModified(UserResponse stamp, ServerWebExchange exchange) {
+        String etag = UserController.etag(stamp);
+        return etag != null && exchange.checkNotModified(etag, stamp.getUpdatedAt());
+    }
+}
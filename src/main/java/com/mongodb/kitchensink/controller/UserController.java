@@ -1,8 +1,10 @@
 package com.mongodb.kitchensink.controller;
 
 
+import com.mongodb.kitchensink.dto.UserResponse;
 import com.mongodb.kitchensink.dto.UserUpdateRequest;
 import com.mongodb.kitchensink.exception.InvalidFieldException;
+import com.mongodb.kitchensink.service.UserExportService;
 import com.mongodb.kitchensink.service.UserInfoService;
 import com.mongodb.kitchensink.service.UserValidation;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,36 +15,54 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/rest/members")
 @CrossOrigin(
         origins = "http://localhost:5173",
         allowCredentials = "true",
         allowedHeaders = {"*"},
+        exposedHeaders = {"ETag", "Last-Modified"},
         methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.PATCH, RequestMethod.DELETE, RequestMethod.OPTIONS}
 )
 @Tag(name = "User Management", description = "APIs for creating, updating, fetching, and deleting users")
 @Slf4j
 public class UserController {
 
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    private static final ZoneId ZONE = ZoneId.of("Asia/Kolkata");
+
     private final UserInfoService service;
     private final UserValidation validation;
+    private final UserExportService exportService;
+    // Render /all and /search pages from raw BSON (RawUserPageMessageConverter) instead of mapped responses
+    private final boolean rawRendering;
 
-    public UserController(UserInfoService service, UserValidation validation) {
+    public UserController(UserInfoService service, UserValidation validation, UserExportService exportService,
+                          @Value("${app.listing.raw-rendering.enabled:false}") boolean rawRendering) {
         this.service = service;
         this.validation = validation;
+        this.exportService = exportService;
+        this.rawRendering = rawRendering;
     }
 
     // -------- PUBLIC ENDPOINTS --------
@@ -57,43 +77,71 @@ public class UserController {
 
     @GetMapping("/all")
     @SecurityRequirement(name = "bearerAuth")
-    @Operation(summary = "Get paginated list of users", description = "Returns users in paginated format.")
+    @Operation(summary = "Get paginated list of users",
+            description = "Returns users in paginated format. Pass cursor (empty for the first page) to get a cursor page "
+                    + "with nextCursor instead of page numbers and totals.")
     public ResponseEntity<?> getAllUsers(
             @PageableDefault(page = 0, size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String cursor,
             Authentication authentication) {
-        log.info("Fetching users with pagination: page={}, size={}", pageable.getPageNumber(), pageable.getPageSize());
+        log.info("Fetching users with pagination: page={}, size={}, cursorMode={}", pageable.getPageNumber(), pageable.getPageSize(), cursor != null);
         validation.validateAdmin(authentication);
+        if (cursor != null) {
+            return ResponseEntity.ok(service.scroll(null, null, null, null, cursor, pageable.getPageSize()));
+        }
+        if (rawRendering) {
+            return ResponseEntity.ok(service.searchRaw(null, null, null, null, pageable));
+        }
         return ResponseEntity.ok(service.getAll(pageable));
     }
 
     @GetMapping
     @SecurityRequirement(name = "bearerAuth")
-    @Operation(summary = "Get list of users", description = "Returns users")
-    public ResponseEntity<?> getAllUsers(Authentication authentication) {
-        log.info("Inside getAllUsers :: Fetching all users");
+    @Operation(summary = "Export all users",
+            description = "Streams every user as a JSON array (default), NDJSON or CSV without loading the collection into memory.")
+    public ResponseEntity<StreamingResponseBody> getAllUsers(
+            @RequestParam(defaultValue = "json") String format,
+            Authentication authentication) {
+        log.info("Inside getAllUsers :: Exporting all users as {}", format);
         validation.validateAdmin(authentication);
-        return ResponseEntity.ok(service.getAllUsers());
+        UserExportService.Format f = UserExportService.Format.from(format);
+        StreamingResponseBody body = out -> exportService.export(f, out);
+        return ResponseEntity.ok().contentType(f.getMediaType()).body(body);
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get user by ID", description = "Fetches a single user by their unique ID")
+    @Operation(summary = "Get user by ID",
+            description = "Fetches a single user by their unique ID. Supports If-None-Match / If-Modified-Since.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User found"),
+            @ApiResponse(responseCode = "304", description = "Unchanged since the supplied validators", content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content)})
     @SecurityRequirement(name = "bearerAuth")
-    public ResponseEntity<?> getUserDetails(@PathVariable String id, Authentication authentication) {
+    public ResponseEntity<?> getUserDetails(@PathVariable String id, Authentication authentication, WebRequest request) {
         log.info("Fetching user with ID: {}", id);
-        validation.validateAdminOrUserById(id, authentication);
-        return ResponseEntity.ok(service.getById(id));
+        if (isConditional(request)) {
+            UserResponse stamp = service.getStampById(id);
+            validation.validateReadAdminOrUser(stamp, authentication);
+            if (notModified(stamp, request)) {
+                return validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), stamp).build();
+            }
+        }
+        UserResponse target = service.getById(id);
+        validation.validateReadAdminOrUser(target, authentication);
+        return validators(ResponseEntity.ok(), target).body(target);
     }
 
     @PutMapping("/{id}")
     @SecurityRequirement(name = "bearerAuth")
-    @Operation(summary = "Update an existing user", description = "Updates details of a registered user by id")
+    @Operation(summary = "Update an existing user",
+            description = "Sets only the supplied fields in one atomic write. Pass the version from a previous read to reject concurrent edits.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "User updated"),
+            @ApiResponse(responseCode = "404", description = "User not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "User changed since the supplied version", content = @Content)})
     public ResponseEntity<?> updateUser(@PathVariable String id, @Valid @RequestBody UserUpdateRequest req, Authentication authentication) {
         log.info("Updating user with Email: {}", req.getEmail());
-        validation.validateAdminOrUserById(id, authentication);
-        return ResponseEntity.ok(service.update(id, req));
+        return ResponseEntity.ok(service.update(id, validation.ownerScope(authentication), req));
     }
 
     @DeleteMapping("/{id}")
@@ -102,27 +150,36 @@ public class UserController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "User deleted successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid user ID supplied"),
+            @ApiResponse(responseCode = "403", description = "Not the caller's own account, or an admin account"),
             @ApiResponse(responseCode = "404", description = "User not found"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - missing or invalid token")})
     public ResponseEntity<Void> deleteUser(@PathVariable String id, Authentication authentication) {
         log.info("Deleting user with ID: {}", id);
-        validation.validateDeleteAdminOrUserById(id, authentication);
-        service.delete(id);
+        service.delete(id, validation.ownerScope(authentication));
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/me")
     @SecurityRequirement(name = "bearerAuth")
-    public ResponseEntity<?> getCurrentUser(Authentication authentication) {
+    @Operation(summary = "Get the current user", description = "Supports If-None-Match / If-Modified-Since.")
+    public ResponseEntity<?> getCurrentUser(Authentication authentication, WebRequest request) {
         log.info("Fetching current user: {}", authentication.getName());
-        return ResponseEntity.ok(service.getByEmail(authentication.getName()));
+        if (isConditional(request)) {
+            UserResponse stamp = service.getStampByEmail(authentication.getName());
+            if (notModified(stamp, request)) {
+                return validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), stamp).build();
+            }
+        }
+        UserResponse me = service.getByEmail(authentication.getName());
+        return validators(ResponseEntity.ok(), me).body(me);
     }
 
     @GetMapping("/search")
     @SecurityRequirement(name = "bearerAuth")
     @Operation(
             summary = "Search users",
-            description = "Search by email and/or name (case-insensitive, contains). Optionally filter by created date range."
+            description = "Search by email and/or name prefix (case-insensitive). Optionally filter by created date range. "
+                    + "Pass cursor (empty for the first page) for cursor paging."
     )
     public ResponseEntity<?> searchUsers(
             @RequestParam(required = false) String email,
@@ -130,33 +187,82 @@ public class UserController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
             @PageableDefault(page = 0, size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String cursor,
             Authentication authentication) {
 
         validation.validateAdmin(authentication);
+        requireFilter(email, name, from, to);
+        Instant fi = startOf(from);
+        Instant ti = endOf(to);
+
+        if (cursor != null) {
+            return ResponseEntity.ok(service.scroll(email, name, fi, ti, cursor, pageable.getPageSize()));
+        }
+        if (rawRendering) {
+            return ResponseEntity.ok(service.searchRaw(email, name, fi, ti, pageable));
+        }
+        return ResponseEntity.ok(service.search(email, name, fi, ti, pageable));
+    }
+
+    @GetMapping("/by-email")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Get user by email", description = "Exact email match.")
+    public ResponseEntity<?> getByEmailExact(@RequestParam String email, Authentication authentication) {
+        validation.validateAdmin(authentication);
+        return ResponseEntity.ok(service.getByEmail(email));
+    }
 
+    // -------- SEARCH FILTERS --------
+
+    static void requireFilter(String email, String name, LocalDate from, LocalDate to) {
         boolean noEmail = (email == null || email.isBlank());
         boolean noName  = (name  == null || name.isBlank());
         boolean noDates = (from == null && to == null);
         if (noEmail && noName && noDates) {
             throw new InvalidFieldException("Provide email or name or a date range.");
         }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidFieldException("from must be before to");
+        }
+    }
+
+    static Instant startOf(LocalDate from) {
+        return (from != null) ? from.atStartOfDay(ZONE).toInstant() : null;
+    }
 
-        ZoneId zone = ZoneId.of("Asia/Kolkata");
-        Instant fi = (from != null) ? from.atStartOfDay(zone).toInstant() : null;
-        Instant ti = (to != null)   ? to.plusDays(1).atStartOfDay(zone).toInstant().minusNanos(1) : null;
+    static Instant endOf(LocalDate to) {
+        return (to != null) ? to.plusDays(1).atStartOfDay(ZONE).toInstant().minusNanos(1) : null;
+    }
 
-        if (fi != null && ti != null && fi.isAfter(ti)) {
-            throw new InvalidFieldException("from must be before to");
+    // -------- CONDITIONAL GET --------
+
+    private static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * Strong validator: the version changes on every write through this service and updatedAt
+     * covers writes that do not bump it. Null when the document predates auditing.
+     */
+    static String etag(UserResponse view) {
+        if (view.getUpdatedAt() == null) {
+            return null;
         }
+        long version = view.getVersion() != null ? view.getVersion() : 0;
+        return "\"" + version + "-" + view.getUpdatedAt().toEpochMilli() + "\"";
+    }
 
-        return ResponseEntity.ok(service.search(email, name, fi, ti, pageable));
+    private static boolean notModified(UserResponse stamp, WebRequest request) {
+        String etag = etag(stamp);
+        return etag != null && request.checkNotModified(etag, stamp.getUpdatedAt().toEpochMilli());
     }
 
-    @GetMapping("/by-email")
-    @SecurityRequirement(name = "bearerAuth")
-    @Operation(summary = "Get user by email", description = "Exact email match.")
-    public ResponseEntity<?> getByEmailExact(@RequestParam String email, Authentication authentication) {
-        validation.validateAdmin(authentication);
-        return ResponseEntity.ok(service.getByEmail(email));
+    static <B extends ResponseEntity.HeadersBuilder<B>> B validators(B builder, UserResponse view) {
+        String etag = etag(view);
+        if (etag == null) {
+            return builder;
+        }
+        // Private and revalidated on every use; replaces Spring Security's default no-store for this response
+        return builder.eTag(etag).lastModified(view.getUpdatedAt()).cacheControl(REVALIDATE);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package com.mongodb.kitchensink.controller;
+
+import com.mongodb.kitchensink.dto.ExportManifest;
+import com.mongodb.kitchensink.service.UserBulkExportService;
+import com.mongodb.kitchensink.service.UserExportService;
+import com.mongodb.kitchensink.service.UserValidation;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/rest/members/export-jobs")
+@Tag(name = "User Export Jobs", description = "Parallel bulk export of all users to chunked files on the server (Admin only)")
+@SecurityRequirement(name = "bearerAuth")
+@Slf4j
+public class UserExportJobController {
+
+    private final UserBulkExportService exportService;
+    private final UserValidation validation;
+
+    public UserExportJobController(UserBulkExportService exportService, UserValidation validation) {
+        this.exportService = exportService;
+        this.validation = validation;
+    }
+
+    @PostMapping
+    @Operation(summary = "Start a bulk export",
+            description = "Returns the RUNNING job manifest at once; the job then splits users into _id ranges and exports them "
+                    + "in parallel as ndjson or csv chunks. Partitions appear in the manifest once the split is done.")
+    public ResponseEntity<ExportManifest> start(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Integer partitions,
+            Authentication authentication) {
+        validation.validateAdmin(authentication);
+        log.info("Starting bulk user export: format={}, partitions={}", format, partitions);
+        ExportManifest manifest = exportService.start(UserExportService.Format.from(format), partitions);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(manifest);
+    }
+
+    @PostMapping("/{jobId}/resume")
+    @Operation(summary = "Resume a bulk export", description = "Continues unfinished partitions after the last completed chunk.")
+    public ResponseEntity<ExportManifest> resume(@PathVariable String jobId, Authentication authentication) {
+        validation.validateAdmin(authentication);
+        log.info("Resuming bulk user export {}", jobId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(exportService.resume(jobId));
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get bulk export progress", description = "Returns the job manifest with per-partition progress.")
+    public ResponseEntity<ExportManifest> status(@PathVariable String jobId, Authentication authentication) {
+        validation.validateAdmin(authentication);
+        return ResponseEntity.ok(exportService.status(jobId));
+    }
+}
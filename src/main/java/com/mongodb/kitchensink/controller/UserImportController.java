@@ -0,0 +1,51 @@
+package com.mongodb.kitchensink.controller;
+
+import com.mongodb.kitchensink.dto.ImportResult;
+import com.mongodb.kitchensink.service.UserExportService;
+import com.mongodb.kitchensink.service.UserImportService;
+import com.mongodb.kitchensink.service.UserValidation;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/rest/members/import")
+@Tag(name = "User Import", description = "Bulk creation of users from NDJSON or CSV (Admin only)")
+@SecurityRequirement(name = "bearerAuth")
+@Slf4j
+public class UserImportController {
+
+    private final UserImportService importService;
+    private final UserValidation validation;
+
+    public UserImportController(UserImportService importService, UserValidation validation) {
+        this.importService = importService;
+        this.validation = validation;
+    }
+
+    @PostMapping(consumes = {"application/x-ndjson", "text/csv"})
+    @Operation(summary = "Import users",
+            description = "Creates users from an NDJSON body (one registration object per line) or CSV with a "
+                    + "name,email,phone,password header. Rows use the registration rules; rejected rows are listed in the result. "
+                    + "Batches are committed as they are read: if the row limit is reached or a batch fails after one was "
+                    + "written, the result is returned with aborted set and the line to resubmit from.")
+    public ResponseEntity<ImportResult> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body,
+            Authentication authentication) throws IOException {
+        validation.validateAdmin(authentication);
+        UserExportService.Format format = contentType.contains("csv") ? UserExportService.Format.CSV : UserExportService.Format.NDJSON;
+        log.info("Importing users from {}", format);
+        return ResponseEntity.ok(importService.importUsers(format, body));
+    }
+}
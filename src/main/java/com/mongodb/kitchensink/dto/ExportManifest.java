@@ -0,0 +1,48 @@
+package com.mongodb.kitchensink.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State of a bulk export job, persisted as {@code manifest.json} next to its chunk files.
+ * A partition's {@code lastId} is the last _id contained in a completed chunk, so a resumed
+ * job restarts each unfinished partition right after it.
+ */
+@Data
+@NoArgsConstructor
+public class ExportManifest {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private String jobId;
+    private String format;
+    private int chunkRows;
+    private Status status;
+    private String error;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private List<Partition> partitions = new ArrayList<>();
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public long getRows() {
+        return partitions.stream().mapToLong(Partition::getRows).sum();
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Partition {
+        private int index;
+        // Inclusive lower and exclusive upper _id bound; null means unbounded
+        private String fromId;
+        private String toId;
+        private String lastId;
+        private long rows;
+        private boolean done;
+        private List<String> chunks = new ArrayList<>();
+    }
+}
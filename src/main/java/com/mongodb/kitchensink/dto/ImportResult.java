@@ -0,0 +1,55 @@
+package com.mongodb.kitchensink.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "Outcome of a bulk user import; only rows that were not inserted are listed. "
+        + "When aborted is true the import stopped early: rows before stoppedAtLine are accounted for, that line and later ones were not read")
+public class ImportResult {
+
+    public enum Status { DUPLICATE, INVALID, FAILED }
+
+    private int total;
+    private int inserted;
+    private int duplicates;
+    private int invalid;
+    private int failed;
+    private List<Row> errors = new ArrayList<>();
+    private boolean aborted;
+    @Schema(description = "1-based line where reading stopped when aborted; resubmit from here", example = "100002")
+    private Integer stoppedAtLine;
+    private String abortReason;
+
+    public void reject(int line, String email, Status status, String message) {
+        switch (status) {
+            case DUPLICATE -> duplicates++;
+            case INVALID -> invalid++;
+            case FAILED -> failed++;
+        }
+        errors.add(new Row(line, email, status, message));
+    }
+
+    public void abort(int line, String reason) {
+        aborted = true;
+        stoppedAtLine = line;
+        abortReason = reason;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        @Schema(description = "1-based line number in the uploaded file", example = "42")
+        private int line;
+        private String email;
+        private Status status;
+        private String message;
+    }
+}
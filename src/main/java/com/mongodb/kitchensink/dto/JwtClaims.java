@@ -0,0 +1,26 @@
+package com.mongodb.kitchensink.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Date;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class JwtClaims {
+    private final String subject;
+    private final String userId;
+    private final String roles;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+
+    public boolean isIssuedWithin(long maxAgeMs) {
+        return issuedAt != null && System.currentTimeMillis() - issuedAt.getTime() <= maxAgeMs;
+    }
+}
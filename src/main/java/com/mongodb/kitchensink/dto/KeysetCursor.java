@@ -0,0 +1,57 @@
+package com.mongodb.kitchensink.dto;
+
+import com.mongodb.kitchensink.exception.InvalidFieldException;
+import com.mongodb.kitchensink.model.UserInfo;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position after the last returned user in (createdAt DESC, _id DESC) order. Clients only see
+ * the opaque base64url token produced by {@link #encode()} and hand it back unchanged.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final Instant createdAt;
+    private final String id;
+
+    public static KeysetCursor of(UserInfo user) {
+        if (user.getCreatedAt() == null || user.getId() == null) {
+            return null;
+        }
+        return new KeysetCursor(user.getCreatedAt(), user.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt.toEpochMilli() + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns null for a blank token, which requests the first page.
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(SEPARATOR);
+            String id = raw.substring(sep + 1);
+            if (sep <= 0 || !ObjectId.isValid(id)) {
+                throw new InvalidFieldException("Invalid cursor");
+            }
+            return new KeysetCursor(Instant.ofEpochMilli(Long.parseLong(raw.substring(0, sep))), id);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidFieldException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.mongodb.kitchensink.dto;
+
+import org.bson.RawBsonDocument;
+
+/**
+ * A page of users left as the BSON the driver read, for rendering by
+ * {@code RawUserPageMessageConverter} without mapping each row to an entity and a response.
+ */
+public record RawUserPage(CountedPage<RawBsonDocument> page) {
+}
@@ -1,10 +1,14 @@
 package com.mongodb.kitchensink.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @AllArgsConstructor
@@ -21,4 +25,17 @@ public class UserResponse {
 
     @Schema(description = "Phone number of the user", example = "9876543210")
     private String phone;
+
+    @Schema(description = "Document version; send it back on update to reject concurrent edits", example = "3")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+
+    // Source of the ETag / Last-Modified validators; not part of the body
+    @JsonIgnore
+    @Schema(hidden = true)
+    private Instant updatedAt;
+
+    public UserResponse(String id, String name, String email, String phone) {
+        this(id, name, email, phone, null, null);
+    }
 }
\ No newline at end of file
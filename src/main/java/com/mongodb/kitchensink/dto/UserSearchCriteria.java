@@ -0,0 +1,30 @@
+package com.mongodb.kitchensink.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Normalized search filters. Text filters are lowercase prefixes matched against the stored
+ * lowercase {@code email} and {@code usernameLower} fields; any filter may be null.
+ */
+@Getter
+@Builder
+public class UserSearchCriteria {
+    private final String emailPrefix;
+    private final String namePrefix;
+    private final Instant createdFrom;
+    private final Instant createdTo;
+
+    public boolean isEmpty() {
+        return emailPrefix == null && namePrefix == null && createdFrom == null && createdTo == null;
+    }
+
+    /**
+     * Stable key for caching results per filter; the fields are already normalized.
+     */
+    public String cacheKey() {
+        return emailPrefix + "|" + namePrefix + "|" + createdFrom + "|" + createdTo;
+    }
+}
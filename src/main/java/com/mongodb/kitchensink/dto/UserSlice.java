@@ -0,0 +1,26 @@
+package com.mongodb.kitchensink.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@Schema(description = "One page of users in cursor mode; no total count is computed")
+public class UserSlice {
+    @Schema(description = "Users on this page, newest first")
+    private List<UserResponse> content;
+
+    @Schema(description = "Requested page size", example = "10")
+    private int size;
+
+    @Schema(description = "Whether another page follows")
+    private boolean hasNext;
+
+    @Schema(description = "Cursor to pass as ?cursor= for the next page; null on the last page")
+    private String nextCursor;
+}
@@ -39,4 +39,7 @@ public class UserUpdateRequest {
         )
         @Schema(description = "Phone number of the member", example = "9876543210")
         private String phone;
+
+        @Schema(description = "Version last read by the client; when present the update fails with 409 if the user changed since", example = "3")
+        private Long version;
 }
@@ -1,50 +1,111 @@
 package com.mongodb.kitchensink.exception;
 
 import com.mongodb.kitchensink.util.Constants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AccountExpiredException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry registry;
+    private final Counter accessDenied;
+
+    public GlobalExceptionHandler(MeterRegistry registry) {
+        this.registry = registry;
+        this.accessDenied = registry.counter(Constants.METRIC_AUTH_FAILURES, Constants.TAG_CAUSE, "access_denied");
+    }
+
     // 400: @Valid - Validation errors
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException ex) {
+        return build(HttpStatus.BAD_REQUEST, Constants.VALIDATION_FAILED, fieldErrors(ex.getBindingResult().getFieldErrors()));
+    }
+
+    // 400: @Valid - Validation errors on the reactive stack
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, Object>> handleValidation(WebExchangeBindException ex) {
+        return build(HttpStatus.BAD_REQUEST, Constants.VALIDATION_FAILED, fieldErrors(ex.getFieldErrors()));
+    }
+
+    private static Map<String, String> fieldErrors(List<FieldError> errors) {
         Map<String, String> fieldErrors = new HashMap<>();
-        ex.getBindingResult().getFieldErrors().forEach(err ->
+        errors.forEach(err ->
                 fieldErrors.put(err.getField(), err.getDefaultMessage())
         );
-        return build(HttpStatus.BAD_REQUEST, Constants.VALIDATION_FAILED, fieldErrors);
+        return fieldErrors;
     }
 
     // 400: Malformed body
     @ExceptionHandler({ HttpMessageNotReadableException.class, InvalidFieldException.class })
-    public ResponseEntity<Map<String, Object>> handleUnreadable(HttpMessageNotReadableException ex) {
+    public ResponseEntity<Map<String, Object>> handleUnreadable(RuntimeException ex) {
         String msg = ex.getMessage() != null ? ex.getMessage() : Constants.MALFORMED_REQUEST_BODY_OR_INVALID_VALUE;
         return build(HttpStatus.BAD_REQUEST, Constants.BAD_REQUEST, msg);
     }
 
+    // 400: Malformed body or missing parameter on the reactive stack
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<Map<String, Object>> handleInput(ServerWebInputException ex) {
+        String msg = ex.getReason() != null ? ex.getReason() : Constants.MALFORMED_REQUEST_BODY_OR_INVALID_VALUE;
+        return build(HttpStatus.BAD_REQUEST, Constants.BAD_REQUEST, msg);
+    }
+
     // 401: Authentication problems
     @ExceptionHandler({ AuthenticationException.class})
     public ResponseEntity<Map<String, Object>> handleAuth(AuthenticationException ex) {
+        registry.counter(Constants.METRIC_AUTH_FAILURES, Constants.TAG_CAUSE, cause(ex)).increment();
         String msg = ex.getMessage() != null ? ex.getMessage() : Constants.MISSING_OR_INVALID_CREDENTIALS;
         return build(HttpStatus.UNAUTHORIZED, Constants.UNAUTHORIZED, msg);
     }
 
+    // Fixed set of tag values, so an unexpected exception type cannot grow the series count
+    static String cause(AuthenticationException ex) {
+        if (ex instanceof BadCredentialsException) {
+            return "bad_credentials";
+        }
+        if (ex instanceof DisabledException) {
+            return "disabled";
+        }
+        if (ex instanceof LockedException) {
+            return "locked";
+        }
+        if (ex instanceof AccountExpiredException || ex instanceof CredentialsExpiredException) {
+            return "expired";
+        }
+        if (ex instanceof InternalAuthenticationServiceException) {
+            // The user lookup itself failed (e.g. MongoDB unreachable), not the credentials
+            return "internal_error";
+        }
+        return "other";
+    }
+
     // 403: Forbidden
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<Map<String, Object>> handleDenied(AccessDeniedException ex) {
+        accessDenied.increment();
         String msg = ex.getMessage() != null ? ex.getMessage() : Constants.ACCESS_DENIED;
         return build(HttpStatus.FORBIDDEN, Constants.FORBIDDEN, msg);
     }
@@ -57,12 +118,21 @@ public class GlobalExceptionHandler {
     }
 
     // 409: Conflicts
-    @ExceptionHandler({ DataIntegrityViolationException.class,UserCreationException.class, UserDeletionException.class})
+    @ExceptionHandler({ DataIntegrityViolationException.class,UserCreationException.class, UserDeletionException.class, UserUpdateConflictException.class})
     public ResponseEntity<Map<String, Object>> handleConflict(Exception ex) {
         String msg = ex.getMessage() != null ? ex.getMessage() : Constants.RESOURCE_ALREADY_EXISTS_OR_VIOLATES_CONSTRAINTS;
         return build(HttpStatus.CONFLICT, Constants.CONFLICT, msg);
     }
 
+    // 503: Password hashing pool saturated
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleHashingUnavailable(PasswordHashingUnavailableException ex) {
+        ResponseEntity<Map<String, Object>> res = build(HttpStatus.SERVICE_UNAVAILABLE, Constants.SERVICE_UNAVAILABLE, ex.getMessage());
+        return ResponseEntity.status(res.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(res.getBody());
+    }
+
     // 500: Catch-all
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGeneric(Exception ex) {
@@ -0,0 +1,8 @@
+package com.mongodb.kitchensink.exception;
+
+public class UserUpdateConflictException extends RuntimeException {
+
+    public UserUpdateConflictException(String message) {
+        super(message);
+    }
+}
@@ -1,12 +1,18 @@
 package com.mongodb.kitchensink.filter;
 
+import com.mongodb.kitchensink.config.UserInfoUserDetails;
 import com.mongodb.kitchensink.config.UserInfoUserDetailsService;
+import com.mongodb.kitchensink.dto.JwtClaims;
 import com.mongodb.kitchensink.service.JwtService;
 import com.mongodb.kitchensink.util.Constants;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,11 +23,21 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
+@Profile("!reactive")
+@Slf4j
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserInfoUserDetailsService userDetailsService;
 
+    // When enabled, tokens younger than maxAgeMs are trusted without a user lookup;
+    // older tokens fall back to the database so role changes apply within maxAgeMs.
+    @Value("${jwt.claims-principal.enabled:false}")
+    private boolean claimsPrincipalEnabled;
+
+    @Value("${jwt.claims-principal.max-age-ms:300000}")
+    private long claimsPrincipalMaxAgeMs;
+
     public JwtAuthFilter(JwtService jwtService, UserInfoUserDetailsService userDetailsService) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
@@ -30,17 +46,20 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String authHeader = request.getHeader(Constants.AUTHORIZATION);
-        String username = null;
-        String token = null;
+        JwtClaims claims = null;
         if (authHeader != null && authHeader.startsWith(Constants.BEARER_)) {
-            token = authHeader.substring(7);
-            username = jwtService.extractUsername(token);
-
+            String token = authHeader.substring(Constants.BEARER_.length());
+            try {
+                // Signature and expiry are verified here, once per request
+                claims = jwtService.parseToken(token);
+            } catch (JwtException | IllegalArgumentException ex) {
+                log.debug("Rejected bearer token: {}", ex.getMessage());
+            }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtService.validateToken(token, userDetails)) {
+        if (claims != null && claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolvePrincipal(claims);
+            if (jwtService.validateToken(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -50,4 +69,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails resolvePrincipal(JwtClaims claims) {
+        if (claimsPrincipalEnabled && claims.getRoles() != null && claims.isIssuedWithin(claimsPrincipalMaxAgeMs)) {
+            return new UserInfoUserDetails(claims);
+        }
+        return userDetailsService.loadUserByUsername(claims.getSubject());
+    }
 }
@@ -0,0 +1,82 @@
+package com.mongodb.kitchensink.filter;
+
+import com.mongodb.kitchensink.config.ReactiveUserInfoUserDetailsService;
+import com.mongodb.kitchensink.config.UserInfoUserDetails;
+import com.mongodb.kitchensink.dto.JwtClaims;
+import com.mongodb.kitchensink.service.JwtService;
+import com.mongodb.kitchensink.util.Constants;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Reactive counterpart of {@link JwtAuthFilter}, with the same token checks and the same
+ * claims-principal settings. The authentication is put in the Reactor context of the rest of
+ * the chain rather than in a thread-local holder.
+ * <p>
+ * Created by ReactiveSecurityConfig rather than declared as a bean: WebFlux would also run
+ * every WebFilter bean in the application-wide chain, outside Spring Security.
+ */
+@Slf4j
+public class JwtAuthWebFilter implements WebFilter {
+
+    private final JwtService jwtService;
+    private final ReactiveUserInfoUserDetailsService userDetailsService;
+    private final boolean claimsPrincipalEnabled;
+    private final long claimsPrincipalMaxAgeMs;
+
+    // When enabled, tokens younger than maxAgeMs are trusted without a user lookup
+    public JwtAuthWebFilter(JwtService jwtService, ReactiveUserInfoUserDetailsService userDetailsService,
+                            boolean claimsPrincipalEnabled, long claimsPrincipalMaxAgeMs) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.claimsPrincipalEnabled = claimsPrincipalEnabled;
+        this.claimsPrincipalMaxAgeMs = claimsPrincipalMaxAgeMs;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        JwtClaims claims = parse(exchange.getRequest().getHeaders().getFirst(Constants.AUTHORIZATION));
+        if (claims == null || claims.getSubject() == null) {
+            return chain.filter(exchange);
+        }
+        return authenticate(claims)
+                .map(ReactiveSecurityContextHolder::withAuthentication)
+                .defaultIfEmpty(Context.empty())
+                .flatMap(context -> chain.filter(exchange).contextWrite(context));
+    }
+
+    private JwtClaims parse(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith(Constants.BEARER_)) {
+            return null;
+        }
+        try {
+            // Signature and expiry are verified here, once per request
+            return jwtService.parseToken(authHeader.substring(Constants.BEARER_.length()));
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.debug("Rejected bearer token: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private Mono<Authentication> authenticate(JwtClaims claims) {
+        return resolvePrincipal(claims)
+                .filter(userDetails -> jwtService.validateToken(claims, userDetails))
+                .map(userDetails -> new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+
+    private Mono<UserDetails> resolvePrincipal(JwtClaims claims) {
+        if (claimsPrincipalEnabled && claims.getRoles() != null && claims.isIssuedWithin(claimsPrincipalMaxAgeMs)) {
+            return Mono.just(new UserInfoUserDetails(claims));
+        }
+        return userDetailsService.findByUsername(claims.getSubject());
+    }
+}
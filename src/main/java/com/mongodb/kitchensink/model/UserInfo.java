@@ -7,6 +7,9 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -17,18 +20,27 @@ import java.time.Instant;
 @AllArgsConstructor
 @Builder
 @Document(collection = "users")
+@CompoundIndexes({
+        @CompoundIndex(name = "createdAt_id", def = "{ 'createdAt': -1, '_id': -1 }"),
+        @CompoundIndex(name = "email_createdAt_id", def = "{ 'email': 1, 'createdAt': -1, '_id': -1 }"),
+        @CompoundIndex(name = "usernameLower_createdAt_id", def = "{ 'usernameLower': 1, 'createdAt': -1, '_id': -1 }")
+})
 public class UserInfo {
     @Id
     private String id;
     private String username;
+    // Lowercase copy of username for index-backed prefix search; maintained by UserInfoBeforeConvertCallback
+    private String usernameLower;
     private String password;
     @Indexed(unique = true)
     private String email;
     private String roles;
     private String phone;
     @CreatedDate
-    @Indexed
     private Instant createdAt;
     @LastModifiedDate
     private Instant updatedAt;
+    // Bumped by every write; absent on documents written before it existed, which reads as null
+    @Version
+    private Long version;
 }
@@ -0,0 +1,38 @@
+package com.mongodb.kitchensink.repository;
+
+import com.mongodb.kitchensink.model.UserInfo;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+import static com.mongodb.kitchensink.repository.UserInfoRepository.STAMP_FIELDS;
+import static com.mongodb.kitchensink.repository.UserInfoRepository.VIEW_FIELDS;
+
+/**
+ * Non-blocking counterpart of {@link UserInfoRepository} for the reactive profile, with the same
+ * projections. Only created when the reactive MongoDB auto-configuration is enabled.
+ */
+public interface ReactiveUserInfoRepository extends ReactiveMongoRepository<UserInfo, String>, ReactiveUserInfoRepositoryCustom {
+
+    Mono<Boolean> existsByEmail(String email);
+
+    // Login/authentication projection: id, email, password hash and roles only
+    @Query(value = "{ 'email': ?0 }", fields = "{ 'email': 1, 'password': 1, 'roles': 1 }")
+    Mono<UserInfo> findCredentialsByEmail(String email);
+
+    @Query(value = "{ '_id': ?0 }", fields = VIEW_FIELDS)
+    Mono<UserInfo> findViewById(String id);
+
+    @Query(value = "{ 'email': ?0 }", fields = VIEW_FIELDS)
+    Mono<UserInfo> findViewByEmail(String email);
+
+    @Query(value = "{ '_id': ?0 }", fields = STAMP_FIELDS)
+    Mono<UserInfo> findStampById(String id);
+
+    @Query(value = "{ 'email': ?0 }", fields = STAMP_FIELDS)
+    Mono<UserInfo> findStampByEmail(String email);
+
+    // Authorization projection: enough to check ownership, the admin flag and the current version
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'email': 1, 'roles': 1, 'version': 1 }")
+    Mono<UserInfo> findAccessById(String id);
+}
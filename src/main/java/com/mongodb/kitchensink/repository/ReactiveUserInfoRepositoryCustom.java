@@ -0,0 +1,39 @@
+package com.mongodb.kitchensink.repository;
+
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.KeysetCursor;
+import com.mongodb.kitchensink.dto.UserSearchCriteria;
+import com.mongodb.kitchensink.model.UserInfo;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserInfoRepositoryCustom {
+
+    /**
+     * Same page and total as {@link UserInfoRepositoryCustom#search}.
+     */
+    Mono<CountedPage<UserInfo>> search(UserSearchCriteria criteria, Pageable pageable);
+
+    /**
+     * Every matching user in {@code sort} order, read from one cursor as downstream demand allows.
+     */
+    Flux<UserInfo> stream(UserSearchCriteria criteria, Sort sort);
+
+    /**
+     * Same rows as {@link UserInfoRepositoryCustom#scroll}.
+     */
+    Flux<UserInfo> scroll(UserSearchCriteria criteria, KeysetCursor after, int limit);
+
+    /**
+     * Same write as {@link UserInfoRepositoryCustom#updateView}; empty when nothing matched.
+     */
+    Mono<UserInfo> updateView(String id, String ownerEmail, Long expectedVersion, Update update);
+
+    /**
+     * Same write as {@link UserInfoRepositoryCustom#deleteNonAdmin}; empty when nothing matched.
+     */
+    Mono<UserInfo> deleteNonAdmin(String id, String ownerEmail);
+}
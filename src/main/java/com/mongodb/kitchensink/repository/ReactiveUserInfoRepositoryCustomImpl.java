@@ -0,0 +1,89 @@
+package com.mongodb.kitchensink.repository;
+
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.KeysetCursor;
+import com.mongodb.kitchensink.dto.UserSearchCriteria;
+import com.mongodb.kitchensink.model.UserInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Runs the queries built by {@link UserInfoRepositoryCustomImpl} on the reactive driver. Page
+ * totals follow the same count strategy and share {@link UserCounter}'s cache, so both stacks
+ * see the same totals.
+ * <p>
+ * {@link #stream} sets a cursor batch size rather than letting the driver size each getMore by
+ * the subscriber's current demand, which for a slow client would mean many tiny round trips.
+ */
+public class ReactiveUserInfoRepositoryCustomImpl implements ReactiveUserInfoRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final UserCounter userCounter;
+    private final int batchSize;
+
+    public ReactiveUserInfoRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate, UserCounter userCounter,
+                                                @Value("${app.export.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.userCounter = userCounter;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Mono<CountedPage<UserInfo>> search(UserSearchCriteria criteria, Pageable pageable) {
+        Query query = UserInfoRepositoryCustomImpl.pageQuery(criteria, pageable);
+        return mongoTemplate.find(query, UserInfo.class)
+                .collectList()
+                .flatMap(content -> page(content, pageable, criteria, query));
+    }
+
+    private Mono<CountedPage<UserInfo>> page(List<UserInfo> content, Pageable pageable, UserSearchCriteria criteria, Query query) {
+        CountedPage<UserInfo> known = UserCounter.known(content, pageable);
+        if (known != null) {
+            return Mono.just(known);
+        }
+        if (userCounter.estimates(criteria)) {
+            return mongoTemplate.estimatedCount(UserInfo.class).map(total -> new CountedPage<>(content, pageable, total, false));
+        }
+        Long cached = userCounter.cached(criteria);
+        if (cached != null) {
+            return Mono.just(new CountedPage<>(content, pageable, cached, false));
+        }
+        return mongoTemplate.count(UserCounter.countQuery(query), UserInfo.class)
+                .doOnNext(total -> userCounter.remember(criteria, total))
+                .map(total -> new CountedPage<>(content, pageable, total, true));
+    }
+
+    @Override
+    public Flux<UserInfo> stream(UserSearchCriteria criteria, Sort sort) {
+        return mongoTemplate.find(UserInfoRepositoryCustomImpl.listQuery(criteria, sort).cursorBatchSize(batchSize), UserInfo.class);
+    }
+
+    @Override
+    public Flux<UserInfo> scroll(UserSearchCriteria criteria, KeysetCursor after, int limit) {
+        return mongoTemplate.find(UserInfoRepositoryCustomImpl.scrollQuery(criteria, after, limit), UserInfo.class);
+    }
+
+    @Override
+    public Mono<UserInfo> updateView(String id, String ownerEmail, Long expectedVersion, Update update) {
+        return mongoTemplate.findAndModify(UserInfoRepositoryCustomImpl.updateQuery(id, ownerEmail, expectedVersion),
+                        UserInfoRepositoryCustomImpl.stamped(update), FindAndModifyOptions.options().returnNew(true), UserInfo.class)
+                // A renamed user can move between name-prefix totals
+                .doOnNext(updated -> userCounter.invalidate());
+    }
+
+    @Override
+    public Mono<UserInfo> deleteNonAdmin(String id, String ownerEmail) {
+        return mongoTemplate.findAndRemove(UserInfoRepositoryCustomImpl.deleteQuery(id, ownerEmail), UserInfo.class)
+                // findAndRemove publishes no delete events, so drop cached totals here
+                .doOnNext(deleted -> userCounter.invalidate());
+    }
+}
@@ -0,0 +1,213 @@
+package com.mongodb.kitchensink.repository;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.kitchensink.config.CacheConfig;
+import com.mongodb.kitchensink.dto.UserResponse;
+import com.mongodb.kitchensink.model.UserInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Evicts cached user views and principals when any node changes a user, by following a change
+ * stream on the users collection. Only update, replace and delete events are requested, with
+ * their document keys and the current email, so imports and signups cost nothing here.
+ * <p>
+ * Principals are cached by email. Updates carry the email through an update lookup; a delete
+ * only has the id, so its email comes from the cached view, and when that is not cached either
+ * all principals are dropped rather than letting a deleted user keep authenticating.
+ * <p>
+ * Change streams need a replica set or sharded cluster. On a standalone server the watcher
+ * logs once and stops, leaving the cache in TTL-only mode. Other failures are retried with
+ * backoff, resuming after the last seen event; if the stream cannot be resumed the cache is
+ * cleared, since events may have been missed.
+ */
+@Component
+@Slf4j
+public class UserChangeWatcher implements SmartLifecycle {
+
+    static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+    static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private static final List<Bson> PIPELINE = List.of(
+            Aggregates.match(Filters.in("operationType", "update", "replace", "delete", "drop", "rename", "dropDatabase", "invalidate")),
+            Aggregates.project(Projections.include("operationType", "documentKey", "ns", "fullDocument.email")));
+
+    private final MongoTemplate mongoTemplate;
+    private final UserViewCache viewCache;
+    private final Cache userDetails;
+    private final boolean enabled;
+    private volatile boolean running;
+    private volatile Thread thread;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+
+    public UserChangeWatcher(MongoTemplate mongoTemplate, UserViewCache viewCache, CacheManager cacheManager,
+                             @Value("${app.cache.user-views.change-stream.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.viewCache = viewCache;
+        this.userDetails = cacheManager.getCache(CacheConfig.USER_DETAILS);
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            log.info("User change stream disabled; cached user views and principals expire by TTL only");
+            return;
+        }
+        running = true;
+        Thread t = new Thread(this::watch, "user-change-watcher");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        MongoChangeStreamCursor<?> c = cursor;
+        if (c != null) {
+            try {
+                c.close();
+            } catch (RuntimeException ignored) {
+                // closing unblocks the watcher thread; errors here do not matter
+            }
+        }
+        Thread t = thread;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void watch() {
+        BsonDocument resumeToken = null;
+        long backoffMs = 1000;
+        while (running) {
+            try {
+                ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(UserInfo.class))
+                        .watch(PIPELINE)
+                        .fullDocument(FullDocument.UPDATE_LOOKUP);
+                if (resumeToken != null) {
+                    stream = stream.resumeAfter(resumeToken);
+                }
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> c = stream.cursor()) {
+                    cursor = c;
+                    if (resumeToken == null) {
+                        // Anything cached before the stream opened may have changed unobserved
+                        viewCache.clear();
+                        userDetails.clear();
+                    }
+                    log.info("Watching users collection for cache invalidation");
+                    backoffMs = 1000;
+                    while (running) {
+                        ChangeStreamDocument<Document> event = c.next();
+                        resumeToken = event.getResumeToken();
+                        apply(event);
+                        if (event.getOperationType() == OperationType.INVALIDATE) {
+                            // An invalidated stream cannot be resumed; open a fresh one
+                            resumeToken = null;
+                            break;
+                        }
+                    }
+                }
+            } catch (MongoCommandException ex) {
+                if (ex.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                    log.info("Change streams are not supported by this deployment; cached user views and principals expire by TTL only");
+                    running = false;
+                    return;
+                }
+                if (ex.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    resumeToken = null;
+                }
+                backoffMs = retryAfter(ex, backoffMs);
+            } catch (RuntimeException ex) {
+                backoffMs = retryAfter(ex, backoffMs);
+            } finally {
+                cursor = null;
+            }
+        }
+    }
+
+    private long retryAfter(RuntimeException ex, long backoffMs) {
+        if (!running) {
+            return backoffMs;
+        }
+        log.warn("User change stream failed, retrying in {} ms: {}", backoffMs, ex.getMessage());
+        try {
+            Thread.sleep(backoffMs);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+        return Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+    }
+
+    void apply(ChangeStreamDocument<Document> event) {
+        OperationType type = event.getOperationType();
+        switch (type) {
+            case UPDATE, REPLACE, DELETE -> {
+                String id = idOf(event.getDocumentKey());
+                String email = emailOf(event, id);
+                if (id != null) {
+                    viewCache.evict(id);
+                }
+                if (email != null) {
+                    userDetails.evict(email);
+                } else {
+                    userDetails.clear();
+                }
+            }
+            case DROP, RENAME, DROP_DATABASE, INVALIDATE -> {
+                viewCache.clear();
+                userDetails.clear();
+            }
+            default -> { /* not requested by the pipeline */ }
+        }
+    }
+
+    // From the looked-up document, else the cached view; null when neither knows it
+    private String emailOf(ChangeStreamDocument<Document> event, String id) {
+        Document full = event.getFullDocument();
+        String email = full == null ? null : full.getString("email");
+        if (email == null) {
+            UserResponse view = viewCache.get(id);
+            email = view == null ? null : view.getEmail();
+        }
+        return email;
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        BsonValue id = documentKey == null ? null : documentKey.get("_id");
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : null;
+    }
+}
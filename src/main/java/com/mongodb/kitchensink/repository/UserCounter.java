@@ -0,0 +1,124 @@
+package com.mongodb.kitchensink.repository;
+
+import com.mongodb.kitchensink.config.CacheConfig;
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.UserSearchCriteria;
+import com.mongodb.kitchensink.model.UserInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Supplies page totals for user listings according to {@code app.pagination.count-strategy}.
+ * Counts are exact unless a cached strategy is chosen. Cached totals are dropped whenever a user
+ * is saved or deleted through this node, since any write can move documents in or out of a filter;
+ * writes on other nodes only show up once the cached total expires.
+ */
+@Component
+@Slf4j
+public class UserCounter extends AbstractMongoEventListener<UserInfo> {
+
+    public enum Strategy {
+        EXACT,
+        CACHED,
+        ESTIMATED
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final Cache counts;
+    private final Strategy strategy;
+
+    public UserCounter(MongoTemplate mongoTemplate, CacheManager cacheManager,
+                       @Value("${app.pagination.count-strategy:EXACT}") Strategy strategy) {
+        this.mongoTemplate = mongoTemplate;
+        this.counts = cacheManager.getCache(CacheConfig.USER_COUNTS);
+        this.strategy = strategy;
+        log.info("User listing count strategy: {}", strategy);
+    }
+
+    /**
+     * Wraps {@code content} in a page, counting only when the page itself cannot tell the total.
+     */
+    public <T> CountedPage<T> page(List<T> content, Pageable pageable, UserSearchCriteria criteria, Query query) {
+        CountedPage<T> known = known(content, pageable);
+        if (known != null) {
+            return known;
+        }
+        if (estimates(criteria)) {
+            return new CountedPage<>(content, pageable, mongoTemplate.estimatedCount(UserInfo.class), false);
+        }
+        Long cached = cached(criteria);
+        if (cached != null) {
+            return new CountedPage<>(content, pageable, cached, false);
+        }
+        long total = mongoTemplate.count(countQuery(query), UserInfo.class);
+        remember(criteria, total);
+        return new CountedPage<>(content, pageable, total, true);
+    }
+
+    /**
+     * The page when its content alone determines the total, otherwise null.
+     */
+    static <T> CountedPage<T> known(List<T> content, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new CountedPage<>(content, pageable, content.size(), true);
+        }
+        // A short page is the last one, so its end is the total (same shortcut as PageableExecutionUtils)
+        if (content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty())) {
+            return new CountedPage<>(content, pageable, pageable.getOffset() + content.size(), true);
+        }
+        return null;
+    }
+
+    /**
+     * Whether the total should come from collection metadata rather than a count.
+     */
+    boolean estimates(UserSearchCriteria criteria) {
+        return strategy == Strategy.ESTIMATED && criteria.isEmpty();
+    }
+
+    /**
+     * The cached total for these filters, or null when there is none or counts are always exact.
+     */
+    Long cached(UserSearchCriteria criteria) {
+        return strategy == Strategy.EXACT ? null : counts.get(criteria.cacheKey(), Long.class);
+    }
+
+    void remember(UserSearchCriteria criteria, long total) {
+        if (strategy != Strategy.EXACT) {
+            counts.put(criteria.cacheKey(), total);
+        }
+    }
+
+    // The page query without its skip and limit
+    static Query countQuery(Query query) {
+        return Query.of(query).limit(-1).skip(-1);
+    }
+
+    /**
+     * Drops all cached totals; for writes that bypass mapping events, such as bulk operations.
+     */
+    public void invalidate() {
+        counts.clear();
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<UserInfo> event) {
+        invalidate();
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<UserInfo> event) {
+        invalidate();
+    }
+}
@@ -1,51 +1,41 @@
 package com.mongodb.kitchensink.repository;
 
 import com.mongodb.kitchensink.model.UserInfo;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
-import java.time.Instant;
 import java.util.Optional;
 
-public interface UserInfoRepository extends MongoRepository<UserInfo, String> {
-    boolean existsByEmail(String email);
-
-    Optional<UserInfo> findByEmail(String email);
-
-    Optional<UserInfo> findByEmailAndPhone(String email, String phoneNumber);
-
-    Page<UserInfo> findByEmailContainingIgnoreCase(String email, Pageable pageable);
-
-    Page<UserInfo> findByUsernameContainingIgnoreCase(String username, Pageable pageable);
+public interface UserInfoRepository extends MongoRepository<UserInfo, String>, UserInfoRepositoryCustom {
 
-    Page<UserInfo> findByEmailContainingIgnoreCaseAndUsernameContainingIgnoreCase(String email, String username, Pageable pageable);
+    // Fields read by UserResponse; read-only endpoints never load the password hash or roles
+    String VIEW_FIELDS = "{ 'username': 1, 'email': 1, 'phone': 1, 'version': 1, 'updatedAt': 1 }";
 
-    // date filters for - all
-    Page<UserInfo> findAllByCreatedAtBetween(Instant from, Instant to, Pageable pageable);
+    // Enough to authorize a conditional GET and compare its validators
+    String STAMP_FIELDS = "{ 'email': 1, 'version': 1, 'updatedAt': 1 }";
 
-    Page<UserInfo> findAllByCreatedAtAfter(Instant from, Pageable pageable);
-
-    Page<UserInfo> findAllByCreatedAtBefore(Instant to, Pageable pageable);
-
-    // search with Email + date
-    Page<UserInfo> findByEmailContainingIgnoreCaseAndCreatedAtBetween(String email, Instant from, Instant to, Pageable p);
-
-    Page<UserInfo> findByEmailContainingIgnoreCaseAndCreatedAtAfter(String email, Instant from, Pageable p);
+    boolean existsByEmail(String email);
 
-    Page<UserInfo> findByEmailContainingIgnoreCaseAndCreatedAtBefore(String email, Instant to, Pageable p);
+    // Login/authentication projection: id, email, password hash and roles only
+    @Query(value = "{ 'email': ?0 }", fields = "{ 'email': 1, 'password': 1, 'roles': 1 }")
+    Optional<UserInfo> findCredentialsByEmail(String email);
 
-    // search with  Username + date
-    Page<UserInfo> findByUsernameContainingIgnoreCaseAndCreatedAtBetween(String username, Instant from, Instant to, Pageable p);
+    @Query(value = "{ '_id': ?0 }", fields = VIEW_FIELDS)
+    Optional<UserInfo> findViewById(String id);
 
-    Page<UserInfo> findByUsernameContainingIgnoreCaseAndCreatedAtAfter(String username, Instant from, Pageable p);
+    @Query(value = "{ 'email': ?0 }", fields = VIEW_FIELDS)
+    Optional<UserInfo> findViewByEmail(String email);
 
-    Page<UserInfo> findByUsernameContainingIgnoreCaseAndCreatedAtBefore(String username, Instant to, Pageable p);
+    @Query(value = "{ 'email': ?0, 'phone': ?1 }", fields = VIEW_FIELDS)
+    Optional<UserInfo> findViewByEmailAndPhone(String email, String phone);
 
-    // search with  Email + Username + date
-    Page<UserInfo> findByEmailContainingIgnoreCaseAndUsernameContainingIgnoreCaseAndCreatedAtBetween(String email, String username, Instant from, Instant to, Pageable p);
+    @Query(value = "{ '_id': ?0 }", fields = STAMP_FIELDS)
+    Optional<UserInfo> findStampById(String id);
 
-    Page<UserInfo> findByEmailContainingIgnoreCaseAndUsernameContainingIgnoreCaseAndCreatedAtAfter(String email, String username, Instant from, Pageable p);
+    @Query(value = "{ 'email': ?0 }", fields = STAMP_FIELDS)
+    Optional<UserInfo> findStampByEmail(String email);
 
-    Page<UserInfo> findByEmailContainingIgnoreCaseAndUsernameContainingIgnoreCaseAndCreatedAtBefore(String email, String username, Instant to, Pageable p);
-}
\ No newline at end of file
+    // Authorization projection: enough to check ownership, the admin flag and the current version
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'email': 1, 'roles': 1, 'version': 1 }")
+    Optional<UserInfo> findAccessById(String id);
+}
@@ -0,0 +1,44 @@
+package com.mongodb.kitchensink.repository;
+
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.KeysetCursor;
+import com.mongodb.kitchensink.dto.UserSearchCriteria;
+import com.mongodb.kitchensink.model.UserInfo;
+import org.bson.RawBsonDocument;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+public interface UserInfoRepositoryCustom {
+
+    /**
+     * Returns one page of matching users; the total follows the configured count strategy.
+     */
+    CountedPage<UserInfo> search(UserSearchCriteria criteria, Pageable pageable);
+
+    /**
+     * Same page as {@link #search}, with each row left as the raw BSON the server returned.
+     */
+    CountedPage<RawBsonDocument> searchRaw(UserSearchCriteria criteria, Pageable pageable);
+
+    /**
+     * Returns up to {@code limit} users after {@code after} (or from the newest when null),
+     * ordered by createdAt and _id descending. No count query is issued.
+     */
+    List<UserInfo> scroll(UserSearchCriteria criteria, KeysetCursor after, int limit);
+
+    /**
+     * Applies {@code update} plus updatedAt and a version bump in one findAndModify and returns
+     * the new document's view fields. The write only matches when the user has the given email
+     * (unless {@code ownerEmail} is null) and version (unless {@code expectedVersion} is null);
+     * returns null when nothing matched.
+     */
+    UserInfo updateView(String id, String ownerEmail, Long expectedVersion, Update update);
+
+    /**
+     * Deletes the user in one round trip if it is not an admin and, unless {@code ownerEmail} is
+     * null, has that email. Returns the deleted user's id and email, or null when nothing matched.
+     */
+    UserInfo deleteNonAdmin(String id, String ownerEmail);
+}
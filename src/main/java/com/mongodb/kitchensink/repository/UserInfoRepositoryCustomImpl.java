@@ -0,0 +1,208 @@
+package com.mongodb.kitchensink.repository;
+
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.KeysetCursor;
+import com.mongodb.kitchensink.dto.UserSearchCriteria;
+import com.mongodb.kitchensink.model.UserInfo;
+import com.mongodb.kitchensink.util.Constants;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds one query for any mix of search filters. Text filters are anchored prefix regexes on
+ * lowercase fields, which MongoDB turns into index bounds on the (email, createdAt, _id) and
+ * (usernameLower, createdAt, _id) compound indexes instead of scanning the collection.
+ * <p>
+ * {@link #scroll} seeks past a (createdAt, _id) cursor with range predicates, so the cost of a
+ * page does not grow with its depth the way skip/limit does.
+ * <p>
+ * {@link #searchRaw} runs the same query as {@link #search} on the driver collection with a
+ * {@link RawBsonDocument} result type, so rows are kept as the bytes the server sent.
+ * <p>
+ * {@link #updateView} sets only the changed fields, so concurrent edits of different fields do
+ * not overwrite each other, and checks ownership and version in the same filter;
+ * {@link #deleteNonAdmin} does the same for ownership and the admin guard.
+ */
+public class UserInfoRepositoryCustomImpl implements UserInfoRepositoryCustom {
+
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+    private static final String[] VIEW_FIELDS = {"username", "email", "phone", "version"};
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    private final MongoTemplate mongoTemplate;
+    private final UserCounter userCounter;
+
+    public UserInfoRepositoryCustomImpl(MongoTemplate mongoTemplate, UserCounter userCounter) {
+        this.mongoTemplate = mongoTemplate;
+        this.userCounter = userCounter;
+    }
+
+    @Override
+    public CountedPage<UserInfo> search(UserSearchCriteria criteria, Pageable pageable) {
+        Query query = pageQuery(criteria, pageable);
+        List<UserInfo> content = mongoTemplate.find(query, UserInfo.class);
+        return userCounter.page(content, pageable, criteria, query);
+    }
+
+    @Override
+    public CountedPage<RawBsonDocument> searchRaw(UserSearchCriteria criteria, Pageable pageable) {
+        Query query = pageQuery(criteria, pageable);
+
+        // Map property names and id types the way MongoTemplate.find would, then bypass entity reading
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(UserInfo.class);
+        Document filter = mapper.getMappedObject(query.getQueryObject(), entity);
+        Document sort = mapper.getMappedSort(query.getSortObject(), entity);
+        Document fields = mapper.getMappedFields(query.getFieldsObject(), entity);
+
+        List<RawBsonDocument> content = mongoTemplate.execute(UserInfo.class, collection -> collection
+                .withDocumentClass(RawBsonDocument.class)
+                .find(filter)
+                .projection(fields)
+                .sort(sort)
+                .skip((int) query.getSkip())
+                .limit(query.getLimit())
+                .into(new ArrayList<>(query.getLimit())));
+        return userCounter.page(content, pageable, criteria, query);
+    }
+
+    @Override
+    public List<UserInfo> scroll(UserSearchCriteria criteria, KeysetCursor after, int limit) {
+        return mongoTemplate.find(scrollQuery(criteria, after, limit), UserInfo.class);
+    }
+
+    @Override
+    public UserInfo updateView(String id, String ownerEmail, Long expectedVersion, Update update) {
+        UserInfo updated = mongoTemplate.findAndModify(updateQuery(id, ownerEmail, expectedVersion), stamped(update),
+                FindAndModifyOptions.options().returnNew(true), UserInfo.class);
+        if (updated != null) {
+            // A renamed user can move between name-prefix totals
+            userCounter.invalidate();
+        }
+        return updated;
+    }
+
+    @Override
+    public UserInfo deleteNonAdmin(String id, String ownerEmail) {
+        // findAndRemove rather than deleteOne: same single round trip, and the email comes back for cache eviction
+        UserInfo deleted = mongoTemplate.findAndRemove(deleteQuery(id, ownerEmail), UserInfo.class);
+        if (deleted != null) {
+            // findAndRemove publishes no delete events, so drop cached totals here
+            userCounter.invalidate();
+        }
+        return deleted;
+    }
+
+    // Query builders shared with ReactiveUserInfoRepositoryCustomImpl
+
+    static Query pageQuery(UserSearchCriteria criteria, Pageable pageable) {
+        Query query = Query.query(toCriteria(criteria)).with(pageable);
+        query.fields().include(VIEW_FIELDS);
+        return query;
+    }
+
+    // Every match in the given order, for streaming
+    static Query listQuery(UserSearchCriteria criteria, Sort sort) {
+        Query query = Query.query(toCriteria(criteria)).with(sort);
+        query.fields().include(VIEW_FIELDS);
+        return query;
+    }
+
+    static Query scrollQuery(UserSearchCriteria criteria, KeysetCursor after, int limit) {
+        Query query = Query.query(toCriteria(criteria, after))
+                .with(KEYSET_SORT)
+                .limit(limit);
+        // createdAt is needed to build the next cursor
+        query.fields().include(VIEW_FIELDS).include("createdAt");
+        return query;
+    }
+
+    static Query updateQuery(String id, String ownerEmail, Long expectedVersion) {
+        Criteria criteria = Criteria.where("id").is(id);
+        if (ownerEmail != null) {
+            criteria.and("email").is(ownerEmail);
+        }
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        Query query = Query.query(criteria);
+        query.fields().include(VIEW_FIELDS);
+        return query;
+    }
+
+    // Auditing and the version callback only run on entity saves, so maintain both here
+    static Update stamped(Update update) {
+        return update.set("updatedAt", Instant.now()).inc("version", 1);
+    }
+
+    static Query deleteQuery(String id, String ownerEmail) {
+        Criteria criteria = Criteria.where("id").is(id).and("roles").not().regex(Constants.ROLES_ADMIN);
+        if (ownerEmail != null) {
+            criteria.and("email").is(ownerEmail);
+        }
+        Query query = Query.query(criteria);
+        query.fields().include("email");
+        return query;
+    }
+
+    static Criteria toCriteria(UserSearchCriteria c) {
+        return and(filters(c));
+    }
+
+    static Criteria toCriteria(UserSearchCriteria c, KeysetCursor after) {
+        List<Criteria> parts = filters(c);
+        if (after != null) {
+            // createdAt < c OR (createdAt == c AND _id < id): strictly after the cursor in sort order
+            parts.add(new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(after.getCreatedAt()),
+                    Criteria.where("createdAt").is(after.getCreatedAt()).and("id").lt(new ObjectId(after.getId()))));
+        }
+        return and(parts);
+    }
+
+    private static Criteria and(List<Criteria> parts) {
+        return parts.isEmpty() ? new Criteria() : new Criteria().andOperator(parts);
+    }
+
+    private static List<Criteria> filters(UserSearchCriteria c) {
+        List<Criteria> parts = new ArrayList<>();
+        if (c.getEmailPrefix() != null) {
+            parts.add(Criteria.where("email").regex(prefixRegex(c.getEmailPrefix())));
+        }
+        if (c.getNamePrefix() != null) {
+            parts.add(Criteria.where("usernameLower").regex(prefixRegex(c.getNamePrefix())));
+        }
+        if (c.getCreatedFrom() != null || c.getCreatedTo() != null) {
+            Criteria created = Criteria.where("createdAt");
+            if (c.getCreatedFrom() != null) created = created.gte(c.getCreatedFrom());
+            if (c.getCreatedTo() != null) created = created.lte(c.getCreatedTo());
+            parts.add(created);
+        }
+        return parts;
+    }
+
+    // Escapes regex metacharacters individually; \Q...\E quoting would defeat the index bounds.
+    static String prefixRegex(String prefix) {
+        StringBuilder sb = new StringBuilder(prefix.length() + 8).append('^');
+        for (int i = 0; i < prefix.length(); i++) {
+            char ch = prefix.charAt(i);
+            if (REGEX_META.indexOf(ch) >= 0) sb.append('\\');
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.mongodb.kitchensink.repository;
+
+import com.mongodb.kitchensink.config.CacheConfig;
+import com.mongodb.kitchensink.dto.UserResponse;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of {@link UserResponse} by id, with a normalized email to id mapping so
+ * that a change known only by id (as in a change stream delete) evicts both lookups.
+ * <p>
+ * Loads take a {@link #stamp()} before reading the database and only store the result if no
+ * eviction happened in between, so a slow read cannot put back a value that was just changed.
+ */
+@Component
+public class UserViewCache {
+
+    private final Cache views;
+    private final Cache emailIds;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UserViewCache(CacheManager cacheManager) {
+        this.views = cacheManager.getCache(CacheConfig.USER_VIEWS);
+        this.emailIds = cacheManager.getCache(CacheConfig.USER_EMAIL_IDS);
+    }
+
+    public UserResponse get(String id) {
+        return id == null ? null : views.get(id, UserResponse.class);
+    }
+
+    public UserResponse getByEmail(String normalizedEmail) {
+        String id = normalizedEmail == null ? null : emailIds.get(normalizedEmail, String.class);
+        return get(id);
+    }
+
+    public long stamp() {
+        return evictions.get();
+    }
+
+    /**
+     * Stores {@code view} unless an eviction happened since {@code stamp} was taken; returns it either way.
+     */
+    public UserResponse put(UserResponse view, long stamp) {
+        if (view.getId() != null && evictions.get() == stamp) {
+            views.put(view.getId(), view);
+            if (view.getEmail() != null) {
+                emailIds.put(view.getEmail(), view.getId());
+            }
+        }
+        return view;
+    }
+
+    public void evict(String id) {
+        evictions.incrementAndGet();
+        views.evict(id);
+    }
+
+    public void clear() {
+        evictions.incrementAndGet();
+        views.clear();
+        emailIds.clear();
+    }
+}
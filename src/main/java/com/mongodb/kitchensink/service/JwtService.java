@@ -1,11 +1,18 @@
 package com.mongodb.kitchensink.service;
 
+import com.mongodb.kitchensink.dto.JwtClaims;
 import com.mongodb.kitchensink.util.Constants;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -14,6 +21,7 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
@@ -25,6 +33,44 @@ public class JwtService {
     @Value("${jwt.expiration-ms}")
     private long expMs;
 
+    // Key and parser are immutable and thread-safe; build them once instead of per token.
+    private volatile Key signKey;
+    private volatile JwtParser parser;
+
+    private final Timer parseTime;
+    private final Timer signTime;
+    private final Counter expiredTokens;
+    private final Counter invalidTokens;
+
+    public JwtService(MeterRegistry registry) {
+        this.parseTime = timer(registry, "parse");
+        this.signTime = timer(registry, "sign");
+        // Rejected bearer tokens never reach GlobalExceptionHandler, so they are counted here
+        this.expiredTokens = registry.counter(Constants.METRIC_AUTH_FAILURES, Constants.TAG_CAUSE, "expired_token");
+        this.invalidTokens = registry.counter(Constants.METRIC_AUTH_FAILURES, Constants.TAG_CAUSE, "invalid_token");
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder("jwt.duration")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Verifies the signature and expiry of the token with a single parse and returns its claims.
+     */
+    public JwtClaims parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        return JwtClaims.builder()
+                .subject(claims.getSubject())
+                .userId(claims.get(Constants.USER_ID, String.class))
+                .roles(claims.get(Constants.ROLES, String.class))
+                .issuedAt(claims.getIssuedAt())
+                .expiration(claims.getExpiration())
+                .build();
+    }
+
     public String extractUsername(String token){
         return extractClaim(token, Claims::getSubject);
     }
@@ -39,12 +85,20 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token){
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        long start = System.nanoTime();
+        try {
+            return getParser()
+                    .parseClaimsJws(token)
+                    .getBody();
+        } catch (ExpiredJwtException ex) {
+            expiredTokens.increment();
+            throw ex;
+        } catch (JwtException | IllegalArgumentException ex) {
+            invalidTokens.increment();
+            throw ex;
+        } finally {
+            parseTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     public boolean isTokenExpired(String token) {
@@ -52,28 +106,56 @@ public class JwtService {
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(parseToken(token), userDetails);
+    }
+
+    public boolean validateToken(JwtClaims claims, UserDetails userDetails) {
+        return claims.getSubject() != null && claims.getSubject().equals(userDetails.getUsername()) && !claims.isExpired();
     }
 
     public String generateToken(String username, String role){
+        return generateToken(username, role, null);
+    }
+
+    public String generateToken(String username, String role, String userId){
         Map<String, Object> claims = new HashMap<>();
         claims.put(Constants.ROLES, role);
+        if (userId != null) {
+            claims.put(Constants.USER_ID, userId);
+        }
         return createToken(claims,username);
     }
 
     private String createToken(Map<String, Object> claims, String username) {
-        return Jwts.builder()
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        String token = Jwts.builder()
                 .setClaims(claims)
                 .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis()+ expMs))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expMs))
                 .signWith(getSignKey(), SignatureAlgorithm.HS256)
                 .compact();
+        signTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return token;
+    }
+
+    private JwtParser getParser() {
+        JwtParser p = parser;
+        if (p == null) {
+            p = Jwts.parserBuilder().setSigningKey(getSignKey()).build();
+            parser = p;
+        }
+        return p;
     }
 
     private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        Key k = signKey;
+        if (k == null) {
+            byte[] keyBytes = Decoders.BASE64.decode(secret);
+            k = Keys.hmacShaKeyFor(keyBytes);
+            signKey = k;
+        }
+        return k;
     }
 }
@@ -0,0 +1,35 @@
+package com.mongodb.kitchensink.service;
+
+import com.mongodb.kitchensink.config.UserInfoUserDetails;
+import com.mongodb.kitchensink.dto.AuthRequest;
+import com.mongodb.kitchensink.util.Constants;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link AuthService}; issues the same token.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveAuthService {
+    private final ReactiveAuthenticationManager authenticationManager;
+    private final JwtService jwtService;
+
+    public ReactiveAuthService(ReactiveAuthenticationManager authenticationManager, JwtService jwtService) {
+        this.authenticationManager = authenticationManager;
+        this.jwtService = jwtService;
+    }
+
+    public Mono<String> login(AuthRequest authRequest) {
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(authRequest.getEmail(), authRequest.getPassword()))
+                .map(authentication -> {
+                    if (authentication.isAuthenticated() && authentication.getPrincipal() instanceof UserInfoUserDetails user) {
+                        return jwtService.generateToken(user.getUsername(), user.getRoles(), user.getId());
+                    }
+                    return Constants.STRING_EMPTY;
+                });
+    }
+}
@@ -0,0 +1,193 @@
+package com.mongodb.kitchensink.service;
+
+import com.mongodb.kitchensink.config.ReactiveUserInfoUserDetailsService;
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.KeysetCursor;
+import com.mongodb.kitchensink.dto.UserRequest;
+import com.mongodb.kitchensink.dto.UserResponse;
+import com.mongodb.kitchensink.dto.UserSlice;
+import com.mongodb.kitchensink.dto.UserUpdateRequest;
+import com.mongodb.kitchensink.exception.UserCreationException;
+import com.mongodb.kitchensink.exception.UserNotFoundException;
+import com.mongodb.kitchensink.repository.ReactiveUserInfoRepository;
+import com.mongodb.kitchensink.repository.UserViewCache;
+import com.mongodb.kitchensink.util.Constants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+
+import static com.mongodb.kitchensink.util.Normalizer.normEmail;
+
+/**
+ * Non-blocking counterpart of {@link UserInfoServiceImpl} for the reactive profile. Requests are
+ * normalized, mapped and checked by the same code, and reads go through the same view cache,
+ * so the two stacks store and return identical data.
+ * <p>
+ * BCrypt is the only blocking step; it runs on Reactor's bounded elastic scheduler, where it
+ * may wait for a slot in the bounded password hashing pool without stalling an event loop.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveUserInfoService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ReactiveUserInfoRepository userRepo;
+    private final ReactiveUserInfoUserDetailsService userDetailsService;
+    private final UserViewCache viewCache;
+
+    public ReactiveUserInfoService(PasswordEncoder passwordEncoder, ReactiveUserInfoRepository userRepo,
+                                   ReactiveUserInfoUserDetailsService userDetailsService, UserViewCache viewCache) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepo = userRepo;
+        this.userDetailsService = userDetailsService;
+        this.viewCache = viewCache;
+    }
+
+    /**
+     * Known emails are turned away before hashing; the unique index settles concurrent signups.
+     */
+    public Mono<Void> createUser(UserRequest userRequest) {
+        return userRepo.existsByEmail(normEmail(userRequest.getEmail()))
+                .flatMap(exists -> exists
+                        ? Mono.<String>error(new UserCreationException(Constants.EMAIL_ALREADY_IN_USE))
+                        : encode(userRequest.getPassword()))
+                .map(hash -> UserInfoServiceImpl.newUser(userRequest, hash))
+                .flatMap(userRepo::save)
+                .onErrorMap(DuplicateKeyException.class, ex -> new UserCreationException(Constants.EMAIL_ALREADY_IN_USE))
+                .doOnNext(user -> log.info("Created user with id = {} & email = {}", user.getId(), user.getEmail()))
+                .then();
+    }
+
+    private Mono<String> encode(String rawPassword) {
+        return Mono.fromCallable(() -> passwordEncoder.encode(rawPassword)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<UserResponse> getById(String id) {
+        return Mono.defer(() -> {
+            UserResponse cached = viewCache.get(id);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long stamp = viewCache.stamp();
+            return userRepo.findViewById(id)
+                    .switchIfEmpty(notFound())
+                    .map(user -> viewCache.put(UserInfoServiceImpl.mapToResponse(user), stamp));
+        });
+    }
+
+    public Mono<UserResponse> getByEmail(String email) {
+        return Mono.defer(() -> {
+            String normEmail = normEmail(email);
+            UserResponse cached = viewCache.getByEmail(normEmail);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long stamp = viewCache.stamp();
+            return userRepo.findViewByEmail(normEmail)
+                    .switchIfEmpty(notFound())
+                    .map(user -> viewCache.put(UserInfoServiceImpl.mapToResponse(user), stamp));
+        });
+    }
+
+    /**
+     * See {@link UserInfoService#getStampById}.
+     */
+    public Mono<UserResponse> getStampById(String id) {
+        return Mono.defer(() -> {
+            UserResponse cached = viewCache.get(id);
+            return cached != null ? Mono.just(cached)
+                    : userRepo.findStampById(id).switchIfEmpty(notFound()).map(UserInfoServiceImpl::mapToResponse);
+        });
+    }
+
+    public Mono<UserResponse> getStampByEmail(String email) {
+        return Mono.defer(() -> {
+            String normEmail = normEmail(email);
+            UserResponse cached = viewCache.getByEmail(normEmail);
+            return cached != null ? Mono.just(cached)
+                    : userRepo.findStampByEmail(normEmail).switchIfEmpty(notFound()).map(UserInfoServiceImpl::mapToResponse);
+        });
+    }
+
+    /**
+     * See {@link UserInfoService#update(String, String, UserUpdateRequest)}.
+     */
+    public Mono<UserResponse> update(String id, String ownerEmail, UserUpdateRequest req) {
+        Mono<Update> changes = UserInfoServiceImpl.hasText(req.getPassword())
+                ? encode(req.getPassword()).map(hash -> UserInfoServiceImpl.changes(req, hash))
+                : Mono.fromSupplier(() -> UserInfoServiceImpl.changes(req, null));
+        return changes
+                .flatMap(update -> userRepo.updateView(id, ownerEmail, req.getVersion(), update))
+                .switchIfEmpty(Mono.defer(() -> userRepo.findAccessById(id)
+                        .map(current -> UserInfoServiceImpl.updateFailure(current, ownerEmail, req.getVersion()))
+                        .defaultIfEmpty(UserInfoServiceImpl.updateFailure(null, ownerEmail, req.getVersion()))
+                        .flatMap(Mono::error)))
+                .doOnNext(user -> {
+                    viewCache.evict(id);
+                    userDetailsService.evict(user.getEmail());
+                    log.info("Updated user with Email={} to version {}", user.getEmail(), user.getVersion());
+                })
+                .map(UserInfoServiceImpl::mapToResponse);
+    }
+
+    /**
+     * See {@link UserInfoService#delete(String, String)}.
+     */
+    public Mono<Void> delete(String id, String ownerEmail) {
+        return userRepo.deleteNonAdmin(id, ownerEmail)
+                .switchIfEmpty(Mono.defer(() -> userRepo.findAccessById(id)
+                        .map(current -> UserInfoServiceImpl.deleteFailure(current, ownerEmail))
+                        .defaultIfEmpty(UserInfoServiceImpl.deleteFailure(null, ownerEmail))
+                        .flatMap(Mono::error)))
+                .doOnNext(deleted -> {
+                    viewCache.evict(id);
+                    userDetailsService.evict(deleted.getEmail());
+                })
+                .then();
+    }
+
+    /**
+     * One page of users with the same total as {@link UserInfoService#search}; every filter may
+     * be empty.
+     */
+    public Mono<CountedPage<UserResponse>> search(String emailLike, String nameLike, Instant from, Instant to, Pageable pageable) {
+        return userRepo.search(UserInfoServiceImpl.toSearchCriteria(emailLike, nameLike, from, to), pageable)
+                .map(page -> page.map(UserInfoServiceImpl::mapToResponse));
+    }
+
+    /**
+     * Every matching user in {@code sort} order, produced only as fast as the subscriber requests.
+     */
+    public Flux<UserResponse> stream(String emailLike, String nameLike, Instant from, Instant to, Sort sort) {
+        return userRepo.stream(UserInfoServiceImpl.toSearchCriteria(emailLike, nameLike, from, to), sort)
+                .map(UserInfoServiceImpl::mapToResponse);
+    }
+
+    /**
+     * See {@link UserInfoService#scroll}.
+     */
+    public Mono<UserSlice> scroll(String emailLike, String nameLike, Instant from, Instant to, String cursor, int size) {
+        return Mono.defer(() -> {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            // One extra row tells us whether another page exists without counting
+            return userRepo.scroll(UserInfoServiceImpl.toSearchCriteria(emailLike, nameLike, from, to), after, size + 1)
+                    .collectList()
+                    .map(rows -> UserInfoServiceImpl.slice(rows, size));
+        });
+    }
+
+    private static <T> Mono<T> notFound() {
+        return Mono.error(() -> new UserNotFoundException(Constants.USER_NOT_FOUND));
+    }
+}
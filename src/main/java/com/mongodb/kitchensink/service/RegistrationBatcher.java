@@ -0,0 +1,186 @@
+package com.mongodb.kitchensink.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.kitchensink.exception.UserCreationException;
+import com.mongodb.kitchensink.model.UserInfo;
+import com.mongodb.kitchensink.repository.UserCounter;
+import com.mongodb.kitchensink.util.Constants;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for self-registration. Callers enqueue a ready-to-store user and wait; a single
+ * flusher thread writes whatever has queued up as one unordered bulk insert once max-batch users
+ * are waiting or max-delay has passed since the first one arrived. Each caller gets its own
+ * outcome, with duplicate emails reported by the unique index (E11000).
+ */
+@Service
+@Slf4j
+public class RegistrationBatcher implements DisposableBean {
+
+    private static final int DUPLICATE_KEY = 11000;
+    private static final long IDLE_POLL_MS = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserCounter userCounter;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Pending> queue;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public RegistrationBatcher(MongoTemplate mongoTemplate, UserCounter userCounter,
+                               @Value("${app.registration.group-commit.enabled:false}") boolean enabled,
+                               @Value("${app.registration.group-commit.max-batch:256}") int maxBatch,
+                               @Value("${app.registration.group-commit.max-delay:5ms}") Duration maxDelay,
+                               @Value("${app.registration.group-commit.queue-capacity:10000}") int queueCapacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.userCounter = userCounter;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        if (enabled) {
+            flusher = new Thread(this::run, "registration-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+            log.info("Registration group commit enabled: max-batch = {}, max-delay = {}", maxBatch, maxDelay);
+        } else {
+            flusher = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the user for the next bulk insert and blocks until that insert has completed.
+     * A full queue blocks the caller, which pushes back on request threads during a burst.
+     */
+    public void insert(UserInfo user) {
+        if (!enabled || !running) {
+            throw new IllegalStateException("Registration group commit is not running");
+        }
+        Pending pending = new Pending(user, new CompletableFuture<>());
+        try {
+            queue.put(pending);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queuing registration", ex);
+        }
+        try {
+            pending.result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw ex;
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Pending first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException ex) {
+                // flush() completes every future itself; this only guards the loop
+                log.error("Registration flusher error", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+        failRemaining();
+    }
+
+    void flush(List<Pending> batch) {
+        List<UserInfo> users = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            // Assign ids up front so callers can log them; a bulk insert does not write them back
+            if (p.user.getId() == null) {
+                p.user.setId(new ObjectId().toHexString());
+            }
+            users.add(p.user);
+        }
+
+        RuntimeException[] failures = new RuntimeException[batch.size()];
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserInfo.class);
+            ops.insert(users);
+            ops.execute();
+        } catch (BulkOperationException ex) {
+            for (BulkWriteError error : ex.getErrors()) {
+                failures[error.getIndex()] = error.getCode() == DUPLICATE_KEY
+                        ? new UserCreationException(Constants.EMAIL_ALREADY_IN_USE)
+                        : new DataIntegrityViolationException(error.getMessage());
+            }
+        } catch (RuntimeException ex) {
+            Arrays.fill(failures, ex);
+        }
+        // Clear cached totals before releasing callers so their next listing sees the new users
+        userCounter.invalidate();
+        for (int i = 0; i < batch.size(); i++) {
+            if (failures[i] == null) {
+                batch.get(i).result.complete(null);
+            } else {
+                batch.get(i).result.completeExceptionally(failures[i]);
+            }
+        }
+        log.debug("Flushed {} registrations", batch.size());
+    }
+
+    private void failRemaining() {
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        IllegalStateException stopped = new IllegalStateException("Registration group commit stopped");
+        left.forEach(p -> p.result.completeExceptionally(stopped));
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        failRemaining();
+    }
+
+    record Pending(UserInfo user, CompletableFuture<Void> result) {
+    }
+}
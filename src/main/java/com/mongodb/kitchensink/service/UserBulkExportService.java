@@ -0,0 +1,426 @@
+package com.mongodb.kitchensink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.kitchensink.dto.ExportManifest;
+import com.mongodb.kitchensink.exception.InvalidFieldException;
+import com.mongodb.kitchensink.model.UserInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Dumps the users collection into chunked NDJSON or CSV files. The collection is split into
+ * _id ranges of roughly equal size and each range is read on its own cursor in parallel.
+ * Splitting runs inside the job, so starting one returns at once with a RUNNING manifest.
+ * Chunks are written to a temp file and renamed when complete, and the manifest records the
+ * last _id of every completed chunk, so a failed or interrupted job can be resumed without
+ * duplicating or losing rows.
+ */
+@Service
+@Slf4j
+public class UserBulkExportService implements DisposableBean {
+
+    static final String MANIFEST = "manifest.json";
+    private static final String TMP = ".tmp";
+    private static final int MAX_PARTITIONS = 64;
+    // Sampled _ids per partition when choosing split points; more gives more even ranges
+    private static final int SAMPLES_PER_PARTITION = 100;
+    private static final Pattern JOB_ID = Pattern.compile("[A-Za-z0-9-]{1,64}");
+    private static final DateTimeFormatter JOB_ID_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS").withZone(ZoneOffset.UTC);
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Path baseDir;
+    private final int parallelism;
+    private final int chunkRows;
+    private final int batchSize;
+    private final ExecutorService executor;
+    private final Map<String, Job> running = new ConcurrentHashMap<>();
+    private final AtomicInteger activePartitions = new AtomicInteger();
+    private final Counter rowsWritten;
+    private final Counter chunksWritten;
+
+    public UserBulkExportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper, MeterRegistry registry,
+                                 @Value("${app.export.job.dir:./exports}") String baseDir,
+                                 @Value("${app.export.job.parallelism:4}") int parallelism,
+                                 @Value("${app.export.job.chunk-rows:100000}") int chunkRows,
+                                 @Value("${app.export.batch-size:500}") int batchSize,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.baseDir = Paths.get(baseDir).toAbsolutePath().normalize();
+        this.parallelism = parallelism;
+        this.chunkRows = chunkRows;
+        this.batchSize = batchSize;
+        // Partitions mostly wait on cursors and file writes, so in virtual-thread mode they run on
+        // virtual threads; the pool size still caps how many read at once.
+        ThreadFactory threads = virtualThreads
+                ? Thread.ofVirtual().name("user-export-", 1).factory()
+                : Thread.ofPlatform().name("user-export-", 1).daemon().factory();
+        this.executor = Executors.newFixedThreadPool(parallelism, threads);
+        this.rowsWritten = Counter.builder("user.export.rows").description("Rows written by bulk export jobs").register(registry);
+        this.chunksWritten = Counter.builder("user.export.chunks").description("Chunk files completed by bulk export jobs").register(registry);
+        Gauge.builder("user.export.partitions.active", activePartitions, AtomicInteger::get)
+                .description("Export partitions currently reading from MongoDB")
+                .register(registry);
+    }
+
+    public ExportManifest start(UserExportService.Format format, Integer partitions) {
+        if (format == UserExportService.Format.JSON) {
+            throw new InvalidFieldException("Bulk export supports ndjson or csv");
+        }
+        int n = Math.max(1, Math.min(partitions != null ? partitions : parallelism, MAX_PARTITIONS));
+
+        ExportManifest manifest = new ExportManifest();
+        manifest.setJobId("users-" + JOB_ID_TIME.format(Instant.now()) + "-" + Integer.toHexString(ThreadLocalRandom.current().nextInt(0x1000, 0x10000)));
+        manifest.setFormat(format.name());
+        manifest.setChunkRows(chunkRows);
+
+        Job job = new Job(manifest, baseDir.resolve(manifest.getJobId()));
+        try {
+            Files.createDirectories(job.dir);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        running.put(manifest.getJobId(), job);
+        launch(job, n);
+        return status(manifest.getJobId());
+    }
+
+    public ExportManifest resume(String jobId) {
+        Path dir = jobDir(jobId);
+        ExportManifest manifest = readManifest(dir);
+        if (manifest.getStatus() == ExportManifest.Status.COMPLETED) {
+            return manifest;
+        }
+        // Claim the job before touching its files so two concurrent resumes cannot both start workers
+        Job job = new Job(manifest, dir);
+        if (running.putIfAbsent(jobId, job) != null) {
+            throw new InvalidFieldException("Export job " + jobId + " is already running");
+        }
+        try {
+            // Chunks that were being written when the job stopped are not in the manifest; redo them
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path tmp : files.filter(f -> f.getFileName().toString().endsWith(TMP)).toList()) {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            manifest.setError(null);
+            launch(job, parallelism);
+        } catch (IOException ex) {
+            running.remove(jobId, job);
+            throw new UncheckedIOException(ex);
+        } catch (RuntimeException ex) {
+            running.remove(jobId, job);
+            throw ex;
+        }
+        return status(jobId);
+    }
+
+    public ExportManifest status(String jobId) {
+        Path dir = jobDir(jobId);
+        Job job = running.get(jobId);
+        if (job == null) {
+            return readManifest(dir);
+        }
+        job.lock.lock();
+        try {
+            // Copy under the lock; partition threads keep mutating the live manifest
+            return objectMapper.convertValue(job.manifest, ExportManifest.class);
+        } finally {
+            job.lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a job the caller has already registered in {@code running} as RUNNING, then splits it
+     * into {@code partitionCount} ranges if it has none yet and starts the unfinished ones, all
+     * off the caller's thread.
+     */
+    private void launch(Job job, int partitionCount) {
+        ExportManifest manifest = job.manifest;
+        manifest.setStatus(ExportManifest.Status.RUNNING);
+        manifest.setStartedAt(Instant.now());
+        manifest.setFinishedAt(null);
+        writeManifest(job);
+
+        CompletableFuture.runAsync(() -> planPartitions(job, partitionCount), executor).thenCompose(planned -> {
+            log.info("Export job {} started: {} partitions, format = {}", manifest.getJobId(), manifest.getPartitions().size(), manifest.getFormat());
+            CompletableFuture<?>[] tasks = manifest.getPartitions().stream()
+                    .filter(p -> !p.isDone())
+                    .map(p -> CompletableFuture.runAsync(() -> exportPartition(job, p), executor))
+                    .toArray(CompletableFuture[]::new);
+            return CompletableFuture.allOf(tasks);
+        }).whenComplete((ok, ex) -> {
+            job.lock.lock();
+            try {
+                manifest.setFinishedAt(Instant.now());
+                if (ex == null) {
+                    manifest.setStatus(ExportManifest.Status.COMPLETED);
+                } else {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    manifest.setStatus(ExportManifest.Status.FAILED);
+                    manifest.setError(cause.getMessage());
+                }
+                writeManifest(job);
+            } finally {
+                job.lock.unlock();
+                running.remove(manifest.getJobId());
+            }
+            log.info("Export job {} {}: {} rows", manifest.getJobId(), manifest.getStatus(), manifest.getRows());
+        });
+    }
+
+    // A job interrupted before its ranges were recorded is split again on resume
+    private void planPartitions(Job job, int partitionCount) {
+        if (!job.manifest.getPartitions().isEmpty()) {
+            return;
+        }
+        List<ExportManifest.Partition> partitions = partition(partitionCount);
+        job.lock.lock();
+        try {
+            job.manifest.setPartitions(partitions);
+            writeManifest(job);
+        } finally {
+            job.lock.unlock();
+        }
+    }
+
+    /**
+     * Splits the collection into {@code n} _id ranges. Split points are quantiles of one random
+     * {@code $sample} of _ids, so the cost depends on n rather than on the collection size, unlike
+     * skipping along the _id index to each boundary.
+     */
+    List<ExportManifest.Partition> partition(int n) {
+        List<String> sample = new ArrayList<>();
+        if (n > 1) {
+            Aggregation sampleIds = Aggregation.newAggregation(
+                    Aggregation.sample((long) n * SAMPLES_PER_PARTITION),
+                    Aggregation.project("_id"),
+                    Aggregation.sort(Sort.by("_id")));
+            for (Document doc : mongoTemplate.aggregate(sampleIds, UserInfo.class, Document.class)) {
+                sample.add(doc.get("_id").toString());
+            }
+        }
+        List<String> splits = new ArrayList<>();
+        for (int i = 1; i < n && !sample.isEmpty(); i++) {
+            String at = sample.get(sample.size() * i / n);
+            if (splits.isEmpty() || !splits.get(splits.size() - 1).equals(at)) {
+                splits.add(at);
+            }
+        }
+
+        List<ExportManifest.Partition> partitions = new ArrayList<>();
+        for (int i = 0; i <= splits.size(); i++) {
+            ExportManifest.Partition p = new ExportManifest.Partition();
+            p.setIndex(i);
+            p.setFromId(i == 0 ? null : splits.get(i - 1));
+            p.setToId(i == splits.size() ? null : splits.get(i));
+            partitions.add(p);
+        }
+        return partitions;
+    }
+
+    static Query rangeQuery(ExportManifest.Partition p) {
+        Criteria id = null;
+        if (p.getLastId() != null) {
+            id = Criteria.where("id").gt(new ObjectId(p.getLastId()));
+        } else if (p.getFromId() != null) {
+            id = Criteria.where("id").gte(new ObjectId(p.getFromId()));
+        }
+        if (p.getToId() != null) {
+            id = (id == null ? Criteria.where("id") : id).lt(new ObjectId(p.getToId()));
+        }
+        return id == null ? new Query() : Query.query(id);
+    }
+
+    private void exportPartition(Job job, ExportManifest.Partition p) {
+        UserExportService.Format format = UserExportService.Format.valueOf(job.manifest.getFormat());
+        Query query = rangeQuery(p).with(Sort.by("id")).cursorBatchSize(batchSize);
+        query.fields().include(UserExportService.EXPORT_FIELDS);
+
+        activePartitions.incrementAndGet();
+        Chunk chunk = null;
+        try (Stream<UserInfo> users = mongoTemplate.stream(query, UserInfo.class)) {
+            Iterator<UserInfo> it = users.iterator();
+            while (it.hasNext()) {
+                if (chunk == null) {
+                    chunk = openChunk(job, p, format);
+                }
+                UserInfo u = it.next();
+                chunk.write(u, format);
+                if (chunk.rows == job.manifest.getChunkRows()) {
+                    commitChunk(job, p, chunk);
+                    chunk = null;
+                }
+            }
+            if (chunk != null) {
+                commitChunk(job, p, chunk);
+                chunk = null;
+            }
+            job.lock.lock();
+            try {
+                p.setDone(true);
+                writeManifest(job);
+            } finally {
+                job.lock.unlock();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            activePartitions.decrementAndGet();
+            if (chunk != null) {
+                chunk.discard();
+            }
+        }
+    }
+
+    private Chunk openChunk(Job job, ExportManifest.Partition p, UserExportService.Format format) throws IOException {
+        String name = String.format("part-%03d-%05d.%s", p.getIndex(), p.getChunks().size(), format.name().toLowerCase(Locale.ROOT));
+        Chunk chunk = new Chunk(job.dir.resolve(name), Files.newBufferedWriter(job.dir.resolve(name + TMP), StandardCharsets.UTF_8));
+        if (format == UserExportService.Format.CSV) {
+            chunk.writer.write(UserExportService.CSV_HEADER);
+            chunk.writer.write("\r\n");
+        }
+        return chunk;
+    }
+
+    private void commitChunk(Job job, ExportManifest.Partition p, Chunk chunk) throws IOException {
+        chunk.writer.close();
+        Files.move(chunk.tmp(), chunk.target, StandardCopyOption.ATOMIC_MOVE);
+        job.lock.lock();
+        try {
+            p.getChunks().add(chunk.target.getFileName().toString());
+            p.setLastId(chunk.lastId);
+            p.setRows(p.getRows() + chunk.rows);
+            writeManifest(job);
+        } finally {
+            job.lock.unlock();
+        }
+        rowsWritten.increment(chunk.rows);
+        chunksWritten.increment();
+    }
+
+    private void writeManifest(Job job) {
+        Path target = job.dir.resolve(MANIFEST);
+        Path tmp = job.dir.resolve(MANIFEST + TMP);
+        try {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), job.manifest);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private ExportManifest readManifest(Path dir) {
+        Path file = dir.resolve(MANIFEST);
+        if (!Files.isRegularFile(file)) {
+            throw new NoSuchElementException("Export job not found");
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), ExportManifest.class);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Path jobDir(String jobId) {
+        if (jobId == null || !JOB_ID.matcher(jobId).matches()) {
+            throw new InvalidFieldException("Invalid export job id");
+        }
+        return baseDir.resolve(jobId);
+    }
+
+    @Override
+    public void destroy() {
+        // Interrupted partitions keep their committed chunks; the job can be resumed after restart
+        executor.shutdownNow();
+    }
+
+    private static final class Job {
+        final ExportManifest manifest;
+        final Path dir;
+        final ReentrantLock lock = new ReentrantLock();
+
+        Job(ExportManifest manifest, Path dir) {
+            this.manifest = manifest;
+            this.dir = dir;
+        }
+    }
+
+    private final class Chunk {
+        final Path target;
+        final BufferedWriter writer;
+        String lastId;
+        int rows;
+
+        Chunk(Path target, BufferedWriter writer) {
+            this.target = target;
+            this.writer = writer;
+        }
+
+        Path tmp() {
+            return target.resolveSibling(target.getFileName() + TMP);
+        }
+
+        void write(UserInfo u, UserExportService.Format format) throws IOException {
+            if (format == UserExportService.Format.CSV) {
+                writer.write(UserExportService.csvRow(UserExportService.toResponse(u)));
+                writer.write("\r\n");
+            } else {
+                writer.write(objectMapper.writeValueAsString(UserExportService.toResponse(u)));
+                writer.write('\n');
+            }
+            lastId = u.getId();
+            rows++;
+        }
+
+        void discard() {
+            try {
+                writer.close();
+                Files.deleteIfExists(tmp());
+            } catch (IOException ex) {
+                log.warn("Could not remove partial export chunk {}: {}", tmp(), ex.getMessage());
+            }
+        }
+    }
+}
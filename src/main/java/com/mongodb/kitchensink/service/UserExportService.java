@@ -0,0 +1,149 @@
+package com.mongodb.kitchensink.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.kitchensink.dto.UserResponse;
+import com.mongodb.kitchensink.exception.InvalidFieldException;
+import com.mongodb.kitchensink.model.UserInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Writes every user to an output stream straight from a MongoDB cursor, so memory use does not
+ * depend on the size of the collection. If the client goes away the next write fails and the
+ * cursor is closed with the stream.
+ */
+@Service
+@Slf4j
+public class UserExportService {
+
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        NDJSON(MediaType.APPLICATION_NDJSON),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8));
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public static Format from(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException ex) {
+                throw new InvalidFieldException("format must be one of json, ndjson or csv");
+            }
+        }
+    }
+
+    static final String CSV_HEADER = "id,name,email,phone";
+    static final String[] EXPORT_FIELDS = {"username", "email", "phone"};
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public UserExportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+                             @Value("${app.export.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    public void export(Format format, OutputStream out) throws IOException {
+        long written;
+        try (Stream<UserInfo> users = mongoTemplate.stream(exportQuery(), UserInfo.class)) {
+            Iterator<UserInfo> it = users.iterator();
+            written = switch (format) {
+                case JSON -> writeJson(it, out, false);
+                case NDJSON -> writeJson(it, out, true);
+                case CSV -> writeCsv(it, out);
+            };
+        } catch (IOException ex) {
+            log.info("User export aborted, cursor closed: {}", ex.getMessage());
+            throw ex;
+        }
+        log.info("User export finished: format = {}, rows = {}", format, written);
+    }
+
+    private Query exportQuery() {
+        Query query = new Query().with(Sort.by("id")).cursorBatchSize(batchSize);
+        query.fields().include(EXPORT_FIELDS);
+        return query;
+    }
+
+    private long writeJson(Iterator<UserInfo> users, OutputStream out, boolean lineDelimited) throws IOException {
+        long rows = 0;
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (lineDelimited) {
+                gen.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            } else {
+                gen.writeStartArray();
+            }
+            while (users.hasNext()) {
+                gen.writeObject(toResponse(users.next()));
+                if (++rows % batchSize == 0) {
+                    gen.flush();
+                }
+            }
+            if (lineDelimited) {
+                if (rows > 0) gen.writeRaw('\n');
+            } else {
+                gen.writeEndArray();
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(Iterator<UserInfo> users, OutputStream out) throws IOException {
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        while (users.hasNext()) {
+            writer.write(csvRow(toResponse(users.next())));
+            writer.write("\r\n");
+            if (++rows % batchSize == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    static String csvRow(UserResponse r) {
+        return csv(r.getId()) + ',' + csv(r.getName()) + ',' + csv(r.getEmail()) + ',' + csv(r.getPhone());
+    }
+
+    static String csv(String value) {
+        if (value == null) return "";
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    static UserResponse toResponse(UserInfo u) {
+        return new UserResponse(u.getId(), u.getUsername(), u.getEmail(), u.getPhone());
+    }
+}
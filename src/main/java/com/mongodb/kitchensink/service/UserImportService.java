@@ -0,0 +1,289 @@
+package com.mongodb.kitchensink.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.kitchensink.dto.ImportResult;
+import com.mongodb.kitchensink.dto.UserRequest;
+import com.mongodb.kitchensink.exception.InvalidFieldException;
+import com.mongodb.kitchensink.model.UserInfo;
+import com.mongodb.kitchensink.repository.UserCounter;
+import com.mongodb.kitchensink.util.Constants;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Imports users from NDJSON or CSV in batches. Rows are validated with the registration rules,
+ * passwords are hashed in parallel, and each batch is written with one unordered bulk insert.
+ * Duplicates are reported by the unique email index (E11000) instead of a lookup per row.
+ * Batches are committed as they are read, so once one has been written the import never fails
+ * as a whole: hitting the row limit or a failing batch stops it and the result says where.
+ */
+@Service
+@Slf4j
+public class UserImportService implements DisposableBean {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserCounter userCounter;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int maxRows;
+    private final ExecutorService hashExecutor;
+
+    public UserImportService(MongoTemplate mongoTemplate, UserCounter userCounter, PasswordEncoder passwordEncoder, ObjectMapper objectMapper, Validator validator,
+                             @Value("${app.import.batch-size:1000}") int batchSize,
+                             @Value("${app.import.max-rows:100000}") int maxRows,
+                             @Value("${app.import.hash-parallelism:0}") int hashParallelism,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.mongoTemplate = mongoTemplate;
+        this.userCounter = userCounter;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+        // Each thread blocks on the bounded hashing pool, so this caps how many of its queue
+        // slots an import can hold at once and leaves room for interactive logins.
+        int threads = hashParallelism > 0 ? hashParallelism : Runtime.getRuntime().availableProcessors();
+        // These threads only wait for the hashing pool, so they can be virtual; the hashing itself
+        // stays on BoundedPasswordEncoder's platform threads.
+        ThreadFactory factory = virtualThreads
+                ? Thread.ofVirtual().name("user-import-", 1).factory()
+                : Thread.ofPlatform().name("user-import-", 1).daemon().factory();
+        this.hashExecutor = Executors.newFixedThreadPool(threads, factory);
+    }
+
+    public ImportResult importUsers(UserExportService.Format format, InputStream in) throws IOException {
+        if (format == UserExportService.Format.JSON) {
+            throw new InvalidFieldException("Import supports ndjson or csv");
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        ImportResult result = new ImportResult();
+        List<String> header = null;
+        int lineNo = 0;
+        if (format == UserExportService.Format.CSV) {
+            String first = reader.readLine();
+            lineNo++;
+            if (first == null) {
+                return result;
+            }
+            header = parseCsvLine(first).stream().map(h -> h.trim().toLowerCase(Locale.ROOT)).toList();
+        }
+
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        boolean written = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (result.getTotal() == maxRows) {
+                // Nothing is in the database yet, so the whole request can still be refused
+                if (!written) {
+                    throw new InvalidFieldException("Import is limited to " + maxRows + " rows per request");
+                }
+                result.abort(lineNo, "Import is limited to " + maxRows + " rows per request");
+                break;
+            }
+            result.setTotal(result.getTotal() + 1);
+
+            UserRequest request;
+            try {
+                request = header != null ? fromCsv(header, line) : objectMapper.readValue(line, UserRequest.class);
+                if (request == null) {
+                    throw new IllegalArgumentException("Empty row");
+                }
+            } catch (JsonProcessingException | IllegalArgumentException ex) {
+                result.reject(lineNo, null, ImportResult.Status.INVALID, "Malformed row");
+                continue;
+            }
+            String violation = firstViolation(request);
+            if (violation != null) {
+                result.reject(lineNo, request.getEmail(), ImportResult.Status.INVALID, violation);
+                continue;
+            }
+            batch.add(new PendingRow(lineNo, request));
+            if (batch.size() == batchSize) {
+                boolean ok = insertOrAbort(batch, result, written);
+                batch.clear();
+                if (!ok) {
+                    break;
+                }
+                written = true;
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertOrAbort(batch, result, written);
+        }
+        log.info("User import finished: total = {}, inserted = {}, duplicates = {}, invalid = {}, failed = {}, aborted = {}",
+                result.getTotal(), result.getInserted(), result.getDuplicates(), result.getInvalid(), result.getFailed(), result.isAborted());
+        return result;
+    }
+
+    /**
+     * Writes one batch. A failure before anything was written still fails the request (a 503 from
+     * the hashing pool can simply be retried); after that, the batch's rows are reported as failed
+     * and the import stops, so the caller learns exactly what was stored.
+     */
+    private boolean insertOrAbort(List<PendingRow> batch, ImportResult result, boolean earlierBatchWritten) {
+        try {
+            insertBatch(batch, result);
+            return true;
+        } catch (RuntimeException ex) {
+            if (!earlierBatchWritten) {
+                throw ex;
+            }
+            String reason = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+            for (PendingRow row : batch) {
+                result.reject(row.line, row.request.getEmail(), ImportResult.Status.FAILED, reason);
+            }
+            result.abort(batch.get(batch.size() - 1).line + 1, reason);
+            log.warn("User import stopped after {} inserted rows: {}", result.getInserted(), reason);
+            return false;
+        }
+    }
+
+    private void insertBatch(List<PendingRow> batch, ImportResult result) {
+        List<CompletableFuture<UserInfo>> hashing = batch.stream()
+                .map(row -> CompletableFuture.supplyAsync(
+                        () -> UserInfoServiceImpl.newUser(row.request, passwordEncoder.encode(row.request.getPassword())), hashExecutor))
+                .toList();
+        List<UserInfo> users = new ArrayList<>(batch.size());
+        for (CompletableFuture<UserInfo> f : hashing) {
+            users.add(join(f));
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserInfo.class);
+        ops.insert(users);
+        try {
+            result.setInserted(result.getInserted() + ops.execute().getInsertedCount());
+        } catch (BulkOperationException ex) {
+            result.setInserted(result.getInserted() + ex.getResult().getInsertedCount());
+            for (BulkWriteError error : ex.getErrors()) {
+                PendingRow row = batch.get(error.getIndex());
+                String email = users.get(error.getIndex()).getEmail();
+                if (error.getCode() == DUPLICATE_KEY) {
+                    result.reject(row.line, email, ImportResult.Status.DUPLICATE, Constants.EMAIL_ALREADY_IN_USE);
+                } else {
+                    result.reject(row.line, email, ImportResult.Status.FAILED, error.getMessage());
+                }
+            }
+        } finally {
+            // A partially failed bulk write publishes no save events, so drop cached totals here
+            userCounter.invalidate();
+        }
+    }
+
+    private static UserInfo join(CompletableFuture<UserInfo> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            // Surface PasswordHashingUnavailableException (503) and friends unchanged
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw ex;
+        }
+    }
+
+    private String firstViolation(UserRequest request) {
+        Set<ConstraintViolation<UserRequest>> violations = validator.validate(request);
+        return violations.stream()
+                .min(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .orElse(null);
+    }
+
+    private static UserRequest fromCsv(List<String> header, String line) {
+        List<String> values = parseCsvLine(line);
+        if (values.size() != header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " columns");
+        }
+        UserRequest request = new UserRequest();
+        for (int i = 0; i < header.size(); i++) {
+            String v = values.get(i);
+            switch (header.get(i)) {
+                case "name", "username" -> request.setUsername(v);
+                case "email" -> request.setEmail(v);
+                case "phone" -> request.setPhone(v);
+                case "password" -> request.setPassword(v);
+                default -> { /* extra columns such as id are ignored */ }
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Splits one RFC 4180 record. Quoted fields may contain commas and doubled quotes; records
+     * spanning several lines are not supported.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void destroy() {
+        hashExecutor.shutdownNow();
+    }
+
+    private record PendingRow(int line, UserRequest request) {
+    }
+}
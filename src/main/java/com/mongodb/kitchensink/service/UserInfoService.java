@@ -1,13 +1,14 @@
 package com.mongodb.kitchensink.service;
 
+import com.mongodb.kitchensink.dto.RawUserPage;
 import com.mongodb.kitchensink.dto.UserRequest;
 import com.mongodb.kitchensink.dto.UserResponse;
+import com.mongodb.kitchensink.dto.UserSlice;
 import com.mongodb.kitchensink.dto.UserUpdateRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.Instant;
-import java.util.List;
 
 public interface UserInfoService {
 
@@ -21,13 +22,42 @@ public interface UserInfoService {
 
     UserResponse getByEmail(String email);
 
+    /**
+     * Returns the cached view if present, otherwise only id, email, version and updatedAt; for
+     * answering conditional requests without loading the user.
+     */
+    UserResponse getStampById(String id);
+
+    /**
+     * Same as {@link #getStampById} by email.
+     */
+    UserResponse getStampByEmail(String email);
+
     UserResponse update(String id, UserUpdateRequest req);
 
+    /**
+     * Updates the user atomically; {@code ownerEmail} restricts the update to that user's own
+     * document (null for admins).
+     */
+    UserResponse update(String id, String ownerEmail, UserUpdateRequest req);
+
     void delete(String id);
 
-    List<UserResponse> getAllUsers();
+    /**
+     * Deletes a non-admin user; {@code ownerEmail} restricts the delete to that user's own
+     * document (null for admins).
+     */
+    void delete(String id, String ownerEmail);
 
     Page<UserResponse> search(String emailLike, String nameLike, Instant from, Instant to, Pageable pageable);
 
+    /**
+     * Same rows and totals as {@link #search} (all users when every filter is empty), left as raw
+     * BSON for direct rendering.
+     */
+    RawUserPage searchRaw(String emailLike, String nameLike, Instant from, Instant to, Pageable pageable);
+
     Page<UserResponse> getAllFiltered(Pageable pageable, Instant from, Instant to);
+
+    UserSlice scroll(String emailLike, String nameLike, Instant from, Instant to, String cursor, int size);
 }
\ No newline at end of file
@@ -1,16 +1,31 @@
 package com.mongodb.kitchensink.service;
 
+import com.mongodb.kitchensink.config.UserInfoUserDetailsService;
+import com.mongodb.kitchensink.dto.KeysetCursor;
+import com.mongodb.kitchensink.dto.RawUserPage;
 import com.mongodb.kitchensink.dto.UserRequest;
 import com.mongodb.kitchensink.dto.UserResponse;
+import com.mongodb.kitchensink.dto.UserSearchCriteria;
+import com.mongodb.kitchensink.dto.UserSlice;
 import com.mongodb.kitchensink.dto.UserUpdateRequest;
+import com.mongodb.kitchensink.exception.UserCreationException;
 import com.mongodb.kitchensink.exception.UserDeletionException;
 import com.mongodb.kitchensink.exception.UserNotFoundException;
+import com.mongodb.kitchensink.exception.UserUpdateConflictException;
 import com.mongodb.kitchensink.model.UserInfo;
 import com.mongodb.kitchensink.repository.UserInfoRepository;
+import com.mongodb.kitchensink.repository.UserViewCache;
 import com.mongodb.kitchensink.util.Constants;
+
+import static com.mongodb.kitchensink.util.Normalizer.normEmail;
+import static com.mongodb.kitchensink.util.Normalizer.normPhone;
+import static com.mongodb.kitchensink.util.Normalizer.normText;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,60 +41,75 @@ public class UserInfoServiceImpl implements UserInfoService {
 
     private final PasswordEncoder passwordEncoder;
     private final UserInfoRepository userRepo;
+    private final UserInfoUserDetailsService userDetailsService;
+    private final RegistrationBatcher registrationBatcher;
+    private final UserViewCache viewCache;
 
-    public UserInfoServiceImpl(PasswordEncoder passwordEncoder, UserInfoRepository userRepo) {
+    public UserInfoServiceImpl(PasswordEncoder passwordEncoder, UserInfoRepository userRepo, UserInfoUserDetailsService userDetailsService,
+                               RegistrationBatcher registrationBatcher, UserViewCache viewCache) {
         this.passwordEncoder = passwordEncoder;
         this.userRepo = userRepo;
+        this.userDetailsService = userDetailsService;
+        this.registrationBatcher = registrationBatcher;
+        this.viewCache = viewCache;
     }
 
-    private static String normEmail(String s) {
-        return (s == null) ? null : s.trim().toLowerCase(Locale.ROOT);
-    }
-
-    private static String normPhone(String s) {
-        return (s == null) ? null : s.replaceAll("\\D+", "");
-    }
-
-    private static String normText(String s) {
-        return (s == null) ? null : s.trim();
-    }
-
-    private static boolean hasText(String s) {
+    static boolean hasText(String s) {
         return s != null && !s.isBlank();
     }
 
+    /**
+     * Known emails are turned away by an indexed existence check before BCrypt runs; the unique
+     * index still settles concurrent signups for the same email.
+     */
     @Override
     @Transactional
     public void createUser(UserRequest userRequest) {
-        final String normEmail = normEmail(userRequest.getEmail());
-        final String normPhone = normPhone(userRequest.getPhone());
-        final String normName = normText(userRequest.getUsername());
-
-        UserInfo user = new UserInfo();
-        user.setEmail(normEmail);
-        user.setPhone(normPhone);
-        user.setUsername(normName);
-        user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
-        user.setRoles(Constants.ROLES_USER);
+        if (userRepo.existsByEmail(normEmail(userRequest.getEmail()))) {
+            throw new UserCreationException(Constants.EMAIL_ALREADY_IN_USE);
+        }
+        UserInfo user = newUser(userRequest, passwordEncoder.encode(userRequest.getPassword()));
 
-        userRepo.save(user);
+        if (registrationBatcher.isEnabled()) {
+            registrationBatcher.insert(user);
+        } else {
+            try {
+                userRepo.save(user);
+            } catch (DuplicateKeyException ex) {
+                throw new UserCreationException(Constants.EMAIL_ALREADY_IN_USE);
+            }
+        }
         log.info("Created user with id = {} & email = {}", user.getId(), user.getEmail());
     }
 
-    @Override
-    public List<UserResponse> getAllUsers() {
-        return userRepo.findAll().stream().map(user -> new UserResponse(user.getId(), user.getUsername(), user.getEmail(), user.getPhone())).collect(Collectors.toList());
+    /**
+     * Builds a new self-registered user from a request; shared with the bulk import so both
+     * paths store identical normalized values.
+     */
+    static UserInfo newUser(UserRequest userRequest, String passwordHash) {
+        UserInfo user = new UserInfo();
+        user.setEmail(normEmail(userRequest.getEmail()));
+        user.setPhone(normPhone(userRequest.getPhone()));
+        user.setUsername(normText(userRequest.getUsername()));
+        user.setPassword(passwordHash);
+        user.setRoles(Constants.ROLES_USER);
+        return user;
     }
 
     @Override
     public Page<UserResponse> getAll(Pageable pageable) {
-        return userRepo.findAll(pageable).map(this::mapToResponse);
+        return userRepo.search(UserSearchCriteria.builder().build(), pageable).map(UserInfoServiceImpl::mapToResponse);
     }
 
     @Override
     public UserResponse getById(String id) {
-        UserInfo user = userRepo.findById(id).orElseThrow(() -> new UserNotFoundException(Constants.USER_NOT_FOUND));
-        return mapToResponse(user);
+        UserResponse cached = viewCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = viewCache.stamp();
+        UserInfo user = userRepo.findViewById(id).orElseThrow(() -> new UserNotFoundException(Constants.USER_NOT_FOUND));
+        return viewCache.put(mapToResponse(user), stamp);
     }
 
     @Override
@@ -87,120 +117,203 @@ public class UserInfoServiceImpl implements UserInfoService {
         final String normEmail = normEmail(email);
         final String normPhone = normPhone(phone);
 
-        UserInfo user = userRepo.findByEmailAndPhone(normEmail, normPhone).orElseThrow(() -> new UserNotFoundException(Constants.USER_NOT_FOUND));
-        return mapToResponse(user);
+        UserResponse cached = viewCache.getByEmail(normEmail);
+        if (cached != null && normPhone != null && normPhone.equals(cached.getPhone())) {
+            return cached;
+        }
+        // A phone mismatch may just be a stale entry, so let the database decide
+        long stamp = viewCache.stamp();
+        UserInfo user = userRepo.findViewByEmailAndPhone(normEmail, normPhone).orElseThrow(() -> new UserNotFoundException(Constants.USER_NOT_FOUND));
+        return viewCache.put(mapToResponse(user), stamp);
     }
 
     @Override
     public UserResponse getByEmail(String email) {
         final String normEmail = normEmail(email);
 
-        UserInfo user = userRepo.findByEmail(normEmail).orElseThrow(() -> new UserNotFoundException(Constants.USER_NOT_FOUND));
-        return mapToResponse(user);
+        UserResponse cached = viewCache.getByEmail(normEmail);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = viewCache.stamp();
+        UserInfo user = userRepo.findViewByEmail(normEmail).orElseThrow(() -> new UserNotFoundException(Constants.USER_NOT_FOUND));
+        return viewCache.put(mapToResponse(user), stamp);
+    }
+
+    @Override
+    public UserResponse getStampById(String id) {
+        UserResponse cached = viewCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        return mapToResponse(userRepo.findStampById(id).orElseThrow(() -> new UserNotFoundException(Constants.USER_NOT_FOUND)));
+    }
+
+    @Override
+    public UserResponse getStampByEmail(String email) {
+        final String normEmail = normEmail(email);
+
+        UserResponse cached = viewCache.getByEmail(normEmail);
+        if (cached != null) {
+            return cached;
+        }
+        return mapToResponse(userRepo.findStampByEmail(normEmail).orElseThrow(() -> new UserNotFoundException(Constants.USER_NOT_FOUND)));
     }
 
     @Override
-    @Transactional
     public UserResponse update(String id, UserUpdateRequest req) {
+        return update(id, null, req);
+    }
+
+    /**
+     * One findAndModify that sets only the supplied fields and returns the new view. When it
+     * matches nothing, a projection lookup tells missing, not-owned and stale-version apart.
+     */
+    @Override
+    public UserResponse update(String id, String ownerEmail, UserUpdateRequest req) {
         log.info("Attempting to update user {}", id);
 
-        UserInfo user = userRepo.findById(id).orElseThrow(() -> new UserNotFoundException(Constants.USER_NOT_FOUND));
+        String passwordHash = hasText(req.getPassword()) ? passwordEncoder.encode(req.getPassword()) : null;
+        UserInfo user = userRepo.updateView(id, ownerEmail, req.getVersion(), changes(req, passwordHash));
+        if (user == null) {
+            throw updateFailure(userRepo.findAccessById(id).orElse(null), ownerEmail, req.getVersion());
+        }
+        // Evict locally right away; other nodes hear about it from the change stream
+        viewCache.evict(id);
+        userDetailsService.evict(user.getEmail());
+        log.info("Updated user with Email={} to version {}", user.getEmail(), user.getVersion());
+        return mapToResponse(user);
+    }
 
-        if (hasText(req.getName())) user.setUsername(normText(req.getName()));
-        if (hasText(req.getPhone())) user.setPhone(normPhone(req.getPhone()));
-        if (hasText(req.getPassword())) user.setPassword(passwordEncoder.encode(req.getPassword()));
+    /**
+     * The fields an update request sets, normalized; {@code passwordHash} is the already encoded
+     * new password, if one was supplied.
+     */
+    static Update changes(UserUpdateRequest req, String passwordHash) {
+        Update update = new Update();
+        if (hasText(req.getName())) {
+            String name = normText(req.getName());
+            update.set("username", name).set("usernameLower", name.toLowerCase(Locale.ROOT));
+        }
+        if (hasText(req.getPhone())) update.set("phone", normPhone(req.getPhone()));
+        if (passwordHash != null) update.set("password", passwordHash);
+        return update;
+    }
 
-        userRepo.save(user);
-        log.info("Updated user with Email={}", user.getEmail());
-        return mapToResponse(user);
+    /**
+     * Tells apart why a conditional update matched nothing, given the user's access projection
+     * (null when the user does not exist).
+     */
+    static RuntimeException updateFailure(UserInfo current, String ownerEmail, Long expectedVersion) {
+        if (current == null) {
+            return new UserNotFoundException(Constants.USER_NOT_FOUND);
+        }
+        if (ownerEmail != null && !ownerEmail.equals(current.getEmail())) {
+            return new AccessDeniedException("You are not allowed to perform this action");
+        }
+        return new UserUpdateConflictException("User was modified concurrently (expected version " + expectedVersion
+                + ", current " + current.getVersion() + "). Reload and retry.");
     }
 
     @Override
-    @Transactional
     public void delete(String id) {
+        delete(id, null);
+    }
+
+    /**
+     * One conditional delete; the access rules live in its filter, so the common case needs no
+     * lookup. Only when nothing was deleted is the user read to pick 404 or 403.
+     */
+    @Override
+    public void delete(String id, String ownerEmail) {
         log.info("Delete request for user with id = {}", id);
-        UserInfo user = userRepo.findById(id).orElseThrow(() -> new UserDeletionException("User not found"));
-        userRepo.deleteById(user.getId());
+        UserInfo deleted = userRepo.deleteNonAdmin(id, ownerEmail);
+        if (deleted == null) {
+            throw deleteFailure(userRepo.findAccessById(id).orElse(null), ownerEmail);
+        }
+        viewCache.evict(id);
+        userDetailsService.evict(deleted.getEmail());
+    }
+
+    /**
+     * Same as {@link #updateFailure} for a conditional delete.
+     */
+    static RuntimeException deleteFailure(UserInfo current, String ownerEmail) {
+        if (current == null) {
+            return new UserNotFoundException(Constants.USER_NOT_FOUND);
+        }
+        if (ownerEmail != null && !ownerEmail.equals(current.getEmail())) {
+            return new AccessDeniedException("You are not allowed to delete another user's details");
+        }
+        if (current.getRoles() != null && current.getRoles().contains(Constants.ROLES_ADMIN)) {
+            return new AccessDeniedException("Admin accounts cannot be deleted.");
+        }
+        // Matched the rules on re-read, so it changed in between (e.g. deleted concurrently)
+        return new UserDeletionException("User changed while being deleted. Please retry.");
     }
 
-    private UserResponse mapToResponse(UserInfo user) {
-        return UserResponse.builder().id(user.getId()).email(user.getEmail()).phone(user.getPhone()).name(user.getUsername()).build();
+    public static UserResponse mapToResponse(UserInfo user) {
+        return UserResponse.builder().id(user.getId()).email(user.getEmail()).phone(user.getPhone()).name(user.getUsername())
+                .version(user.getVersion()).updatedAt(user.getUpdatedAt()).build();
     }
 
     @Override
     public Page<UserResponse> getAllFiltered(Pageable pageable, Instant from, Instant to) {
-        Page<UserInfo> page;
-        if (from != null && to != null) {
-            page = userRepo.findAllByCreatedAtBetween(from, to, pageable);
-        } else if (from != null) {
-            page = userRepo.findAllByCreatedAtAfter(from, pageable);
-        } else if (to != null) {
-            page = userRepo.findAllByCreatedAtBefore(to, pageable);
-        } else {
-            page = userRepo.findAll(pageable);
+        if (from == null && to == null) {
+            return getAll(pageable);
         }
-        return page.map(this::mapToResponse);
+        UserSearchCriteria criteria = UserSearchCriteria.builder().createdFrom(from).createdTo(to).build();
+        return userRepo.search(criteria, pageable).map(UserInfoServiceImpl::mapToResponse);
     }
 
     @Override
     public Page<UserResponse> search(String emailLike, String nameLike, Instant from, Instant to, Pageable pageable) {
+        UserSearchCriteria criteria = toSearchCriteria(emailLike, nameLike, from, to);
 
-        final boolean hasEmail = emailLike != null && !emailLike.isBlank();
-        final boolean hasName = nameLike != null && !nameLike.isBlank();
-        final boolean hasFrom = from != null;
-        final boolean hasTo = to != null;
-
-        final String e = hasEmail ? normEmail(emailLike) : null;
-        final String n = hasName ? normText(nameLike) : null;
-
-        Page<UserInfo> page;
-
-        if (!hasEmail && !hasName) {
+        if (criteria.getEmailPrefix() == null && criteria.getNamePrefix() == null) {
             return getAllFiltered(pageable, from, to);
         }
+        return userRepo.search(criteria, pageable).map(UserInfoServiceImpl::mapToResponse);
+    }
 
-        if (hasEmail && hasName && (hasFrom || hasTo)) {
-            if (hasFrom && hasTo) {
-                page = userRepo.findByEmailContainingIgnoreCaseAndUsernameContainingIgnoreCaseAndCreatedAtBetween(e, n, from, to, pageable);
-            } else if (hasFrom) {
-                page = userRepo.findByEmailContainingIgnoreCaseAndUsernameContainingIgnoreCaseAndCreatedAtAfter(e, n, from, pageable);
-            } else {
-                page = userRepo.findByEmailContainingIgnoreCaseAndUsernameContainingIgnoreCaseAndCreatedAtBefore(e, n, to, pageable);
-            }
-            return page.map(this::mapToResponse);
-        }
+    @Override
+    public RawUserPage searchRaw(String emailLike, String nameLike, Instant from, Instant to, Pageable pageable) {
+        return new RawUserPage(userRepo.searchRaw(toSearchCriteria(emailLike, nameLike, from, to), pageable));
+    }
 
-        if (hasEmail && !hasName && (hasFrom || hasTo)) {
-            if (hasFrom && hasTo) {
-                page = userRepo.findByEmailContainingIgnoreCaseAndCreatedAtBetween(e, from, to, pageable);
-            } else if (hasFrom) {
-                page = userRepo.findByEmailContainingIgnoreCaseAndCreatedAtAfter(e, from, pageable);
-            } else {
-                page = userRepo.findByEmailContainingIgnoreCaseAndCreatedAtBefore(e, to, pageable);
-            }
-            return page.map(this::mapToResponse);
-        }
+    @Override
+    public UserSlice scroll(String emailLike, String nameLike, Instant from, Instant to, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        UserSearchCriteria criteria = toSearchCriteria(emailLike, nameLike, from, to);
 
-        if (!hasEmail && hasName && (hasFrom || hasTo)) {
-            if (hasFrom && hasTo) {
-                page = userRepo.findByUsernameContainingIgnoreCaseAndCreatedAtBetween(n, from, to, pageable);
-            } else if (hasFrom) {
-                page = userRepo.findByUsernameContainingIgnoreCaseAndCreatedAtAfter(n, from, pageable);
-            } else {
-                page = userRepo.findByUsernameContainingIgnoreCaseAndCreatedAtBefore(n, to, pageable);
-            }
-            return page.map(this::mapToResponse);
-        }
+        // One extra row tells us whether another page exists without counting
+        List<UserInfo> rows = userRepo.scroll(criteria, after, size + 1);
+        return slice(rows, size);
+    }
 
-        if (hasEmail && hasName) {
-            page = userRepo.findByEmailContainingIgnoreCaseAndUsernameContainingIgnoreCase(e, n, pageable);
-        } else if (hasEmail) {
-            page = userRepo.findByEmailContainingIgnoreCase(e, pageable);
-        } else {
-            page = userRepo.findByUsernameContainingIgnoreCase(n, pageable);
-        }
+    /**
+     * Turns {@code size + 1} scrolled rows into a page of {@code size} and the cursor after it.
+     */
+    static UserSlice slice(List<UserInfo> rows, int size) {
+        boolean hasNext = rows.size() > size;
+        List<UserInfo> page = hasNext ? rows.subList(0, size) : rows;
+
+        KeysetCursor next = (hasNext && !page.isEmpty()) ? KeysetCursor.of(page.get(page.size() - 1)) : null;
+        return UserSlice.builder()
+                .content(page.stream().map(UserInfoServiceImpl::mapToResponse).collect(Collectors.toList()))
+                .size(size)
+                .hasNext(next != null)
+                .nextCursor(next != null ? next.encode() : null)
+                .build();
+    }
 
-        return page.map(this::mapToResponse);
+    static UserSearchCriteria toSearchCriteria(String emailLike, String nameLike, Instant from, Instant to) {
+        return UserSearchCriteria.builder()
+                .emailPrefix(hasText(emailLike) ? normEmail(emailLike) : null)
+                .namePrefix(hasText(nameLike) ? normText(nameLike).toLowerCase(Locale.ROOT) : null)
+                .createdFrom(from)
+                .createdTo(to)
+                .build();
     }
 }
 
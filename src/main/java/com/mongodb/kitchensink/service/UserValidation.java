@@ -1,82 +1,71 @@
 package com.mongodb.kitchensink.service;
 
-import com.mongodb.kitchensink.dto.UserRequest;
-import com.mongodb.kitchensink.exception.UserNotFoundException;
-import com.mongodb.kitchensink.model.UserInfo;
-import com.mongodb.kitchensink.repository.UserInfoRepository;
+import com.mongodb.kitchensink.dto.UserResponse;
 import com.mongodb.kitchensink.util.Constants;
+import com.mongodb.kitchensink.util.Normalizer;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
-import java.util.Locale;
 
+/**
+ * Authorization checks for member endpoints. The actor's identity and roles come from the
+ * already-authenticated principal, so none of these checks query the database: reads are
+ * checked against the loaded (possibly cached) view, and updates and deletes are scoped by
+ * {@link #ownerScope} and enforced in the write's filter itself.
+ */
 @Component
 public class UserValidation {
 
-    private final UserInfoRepository userRepo;
-
-    public UserValidation(UserInfoRepository userRepo) {
-        this.userRepo = userRepo;
-    }
-
     public void validateAdmin(Authentication authentication) throws AccessDeniedException {
-        String jwtEmail = normEmail(authentication != null ? authentication.getName() : null);
-        UserInfo actor = userRepo.findByEmail(jwtEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("Actor not found: " + jwtEmail));
-        if (!isAdmin(actor)) {
+        actorEmail(authentication);
+        if (!isAdmin(authentication)) {
             throw new AccessDeniedException("You are not allowed to perform this action");
         }
     }
 
-    public void validateAdminOrUserById(String id, Authentication authentication) {
-        String jwtEmail = normEmail(authentication != null ? authentication.getName() : null);
-
-        UserInfo user = userRepo.findById(id)
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
-
-        UserInfo actor = userRepo.findByEmail(jwtEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("Actor not found: " + jwtEmail));
-
-        boolean admin = isAdmin(actor);
-        String targetEmail = normEmail(user.getEmail());
-        if (!admin && !jwtEmail.equals(targetEmail)) {
-            throw new AccessDeniedException("You are not allowed to perform this action");
-        }
+    /**
+     * Returns the email a write must be restricted to: the actor's own for regular users,
+     * null for admins, who may act on anyone. Does not touch the database.
+     */
+    public String ownerScope(Authentication authentication) {
+        String jwtEmail = actorEmail(authentication);
+        return isAdmin(authentication) ? null : jwtEmail;
     }
 
-    public void validateDeleteAdminOrUserById(String id, Authentication authentication) {
-        String jwtEmail = normEmail(authentication != null ? authentication.getName() : null);
-
-        UserInfo user = userRepo.findById(id)
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
-
-        UserInfo actor = userRepo.findByEmail(jwtEmail)
-                .orElseThrow(() -> new UserNotFoundException("Actor not found: " + jwtEmail));
-
-        boolean admin = isAdmin(actor);
-        String targetEmail = normEmail(user.getEmail());
-        if (!admin && !jwtEmail.equals(targetEmail)) {
-            throw new AccessDeniedException("You are not allowed to delete another user's details");
-        }
-        if (isAdmin(user)) {
-            throw new AccessDeniedException("Admin accounts cannot be deleted.");
-        }
+    /**
+     * Checks that the actor is an admin or the user themself, against an already loaded
+     * (possibly cached) view of the target.
+     */
+    public void validateReadAdminOrUser(UserResponse target, Authentication authentication) {
+        String jwtEmail = actorEmail(authentication);
+        checkOwnerOrAdmin(target.getEmail(), jwtEmail, authentication);
     }
 
-    public boolean isExistingUser(UserRequest request) {
-        String email = normEmail(request != null ? request.getEmail() : null);
-        return email != null && userRepo.existsByEmail(email);
+    private String actorEmail(Authentication authentication) {
+        String jwtEmail = Normalizer.normEmail(authentication != null ? authentication.getName() : null);
+        if (jwtEmail == null) {
+            throw new UsernameNotFoundException("Actor not found: " + jwtEmail);
+        }
+        return jwtEmail;
     }
 
-    private boolean isAdmin(UserInfo u) {
-        String roles = u != null && u.getRoles() != null ? u.getRoles() : "";
-        return roles.contains(Constants.ROLES_ADMIN);
+    private void checkOwnerOrAdmin(String email, String jwtEmail, Authentication authentication) {
+        String targetEmail = Normalizer.normEmail(email);
+        if (!isAdmin(authentication) && !jwtEmail.equals(targetEmail)) {
+            throw new AccessDeniedException("You are not allowed to perform this action");
+        }
     }
 
-    private String normEmail(String s) {
-        if (s == null) return null;
-        return s.trim().toLowerCase(Locale.ROOT);
+    private boolean isAdmin(Authentication authentication) {
+        if (authentication == null || authentication.getAuthorities() == null) return false;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (Constants.ROLES_ADMIN.equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
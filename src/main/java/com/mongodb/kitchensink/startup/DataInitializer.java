@@ -3,6 +3,7 @@ package com.mongodb.kitchensink.startup;
 import com.mongodb.kitchensink.model.UserInfo;
 import com.mongodb.kitchensink.repository.UserInfoRepository;
 import com.mongodb.kitchensink.util.Constants;
+import com.mongodb.kitchensink.util.Normalizer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -11,8 +12,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Locale;
-
 @Component
 @Slf4j
 @ConditionalOnProperty(prefix = "app.bootstrap-admin", name = "enabled", havingValue = "true")
@@ -51,12 +50,12 @@ public class DataInitializer implements CommandLineRunner {
             log.info("Bootstrap admin disabled. Skipping...");
             return;
         }
-        final String e = normEmail(email);
+        final String e = Normalizer.normEmail(email);
         if (e == null) {
             log.warn("Bootstrap admin skipped: email is missing.");
             return;
         }
-        if (repo.findByEmail(e).isPresent()) {
+        if (repo.existsByEmail(e)) {
             log.info("Bootstrap admin exists (email={}), skipping.", e);
             return;
         }
@@ -64,7 +63,7 @@ public class DataInitializer implements CommandLineRunner {
         UserInfo admin = new UserInfo();
         admin.setUsername(normText(name));
         admin.setEmail(e);
-        admin.setPhone(normPhone(phone));
+        admin.setPhone(Normalizer.normPhone(phone));
         admin.setPassword(passwordEncoder.encode(password));
         admin.setRoles(normText(roles) != null ? roles : Constants.ROLES_ADMIN);
 
@@ -72,15 +71,8 @@ public class DataInitializer implements CommandLineRunner {
         log.info("Bootstrap admin created (id={}).", admin.getId());
     }
 
-    private static String normEmail(String s) {
-        return s == null ? null : s.trim().toLowerCase(Locale.ROOT);
-    }
-    private static String normPhone(String s) {
-        return s == null ? null : s.replaceAll("\\D+", "");
-    }
     private static String normText(String s) {
-        if (s == null) return null;
-        String t = s.trim();
-        return t.isEmpty() ? null : t;
+        String t = Normalizer.normText(s);
+        return (t == null || t.isEmpty()) ? null : t;
     }
 }
\ No newline at end of file
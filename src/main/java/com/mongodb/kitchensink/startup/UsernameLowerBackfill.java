@@ -0,0 +1,59 @@
+package com.mongodb.kitchensink.startup;
+
+import com.mongodb.kitchensink.model.UserInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Populates {@code usernameLower} for users written before the field existed, so prefix search
+ * by name also finds them. Idempotent: only touches documents still missing the field.
+ * <p>
+ * No index serves the filter, so this is a one-off migration: once a run finds nothing left to
+ * change, a marker document in {@value #MIGRATIONS} is written and later starts only look that up.
+ * Waiting for an empty run rather than marking after the first one covers users still written by
+ * older instances during a rolling deploy. Retire it by deleting this class and the marker once
+ * every environment has the marker, or turn it off earlier with
+ * {@code app.migrations.username-lower-backfill.enabled=false}.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "app.migrations.username-lower-backfill", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class UsernameLowerBackfill implements CommandLineRunner {
+
+    static final String MIGRATIONS = "migrations";
+    static final String MARKER_ID = "usernameLower-backfill";
+
+    private final MongoTemplate mongoTemplate;
+
+    public UsernameLowerBackfill(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        Query marker = Query.query(Criteria.where("_id").is(MARKER_ID));
+        if (mongoTemplate.exists(marker, MIGRATIONS)) {
+            return;
+        }
+        Query missing = Query.query(Criteria.where("usernameLower").exists(false).and("username").type(2));
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("usernameLower").toValue(StringOperators.valueOf("username").toLower());
+        long modified = mongoTemplate.updateMulti(missing, update, UserInfo.class).getModifiedCount();
+        if (modified > 0) {
+            log.info("Backfilled usernameLower on {} users", modified);
+        } else {
+            mongoTemplate.upsert(marker, Update.update("completedAt", new Date()), MIGRATIONS);
+            log.info("usernameLower backfill complete; later starts will skip it");
+        }
+    }
+}
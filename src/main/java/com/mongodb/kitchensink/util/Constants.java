@@ -16,15 +16,21 @@ public class Constants {
     public static final String NOT_FOUND = "Not Found";
     public static final String CONFLICT = "Conflict";
     public static final String INTERNAL_SERVER_ERROR = "Internal Server Error";
+    public static final String SERVICE_UNAVAILABLE = "Service Unavailable";
     public static final String MALFORMED_REQUEST_BODY_OR_INVALID_VALUE = "Malformed request body or invalid value.";
     public static final String MISSING_OR_INVALID_CREDENTIALS = "Missing or invalid credentials.";
     public static final String ACCESS_DENIED = "Access denied.";
     public static final String RESOURCE_NOT_FOUND = "Resource not found.";
     public static final String RESOURCE_ALREADY_EXISTS_OR_VIOLATES_CONSTRAINTS = "Resource already exists or violates constraints.";
     public static final String SOMETHING_WENT_WRONG = "Something went wrong.";
+    public static final String LOGIN_CAPACITY_EXCEEDED = "Too many login or registration requests. Please retry shortly.";
     public static final String ROLES = "roles";
+    public static final String USER_ID = "uid";
     public static final String STRING_EMPTY = "";
     public static final String USER_NOT_FOUND = "User not found!";
+    public static final String EMAIL_ALREADY_IN_USE = "Email already in use!";
+    public static final String METRIC_AUTH_FAILURES = "auth.failures";
+    public static final String TAG_CAUSE = "cause";
 
     private Constants() {
         // Prevent instantiation
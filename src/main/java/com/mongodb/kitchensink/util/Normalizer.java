@@ -0,0 +1,29 @@
+package com.mongodb.kitchensink.util;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical forms for user input, shared by registration, import, search and authentication
+ * so the same email or phone always maps to the same stored value.
+ */
+public class Normalizer {
+
+    private static final Pattern NON_DIGITS = Pattern.compile("\\D+");
+
+    private Normalizer() {
+        // Prevent instantiation
+    }
+
+    public static String normEmail(String s) {
+        return (s == null) ? null : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String normPhone(String s) {
+        return (s == null) ? null : NON_DIGITS.matcher(s).replaceAll("");
+    }
+
+    public static String normText(String s) {
+        return (s == null) ? null : s.trim();
+    }
+}
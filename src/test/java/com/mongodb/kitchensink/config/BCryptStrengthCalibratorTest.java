@@ -0,0 +1,18 @@
+package com.mongodb.kitchensink.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BCryptStrengthCalibratorTest {
+
+    @Test
+    void never_goes_below_min_strength() {
+        assertEquals(4, BCryptStrengthCalibrator.calibrate(0, 4, 6));
+    }
+
+    @Test
+    void stops_at_max_strength_when_target_is_generous() {
+        assertEquals(5, BCryptStrengthCalibrator.calibrate(60_000, 4, 5));
+    }
+}
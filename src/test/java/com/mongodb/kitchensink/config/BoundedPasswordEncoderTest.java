@@ -0,0 +1,60 @@
+package com.mongodb.kitchensink.config;
+
+import com.mongodb.kitchensink.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void delegates_encode_and_matches_and_records_timings() {
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        when(delegate.encode("pw")).thenReturn("HASH");
+        when(delegate.matches("pw", "HASH")).thenReturn(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, 1, 1, 2, registry);
+
+        assertEquals("HASH", encoder.encode("pw"));
+        assertTrue(encoder.matches("pw", "HASH"));
+        assertEquals(1, registry.get("password.hash.duration").tag("operation", "encode").timer().count());
+        assertEquals(1, registry.get("password.hash.queue.wait").tag("operation", "matches").timer().count());
+        encoder.destroy();
+    }
+
+    @Test
+    void rejects_with_retry_after_when_queue_is_full() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        when(delegate.encode(any())).thenAnswer(a -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "HASH";
+        });
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, 1, 1, 3, new SimpleMeterRegistry());
+
+        Thread busy = new Thread(() -> encoder.encode("a"));
+        busy.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Thread queued = new Thread(() -> encoder.encode("b"));
+        queued.start();
+        while (queued.getState() != Thread.State.WAITING && queued.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+
+        PasswordHashingUnavailableException ex = assertThrows(PasswordHashingUnavailableException.class, () -> encoder.encode("c"));
+        assertEquals(3, ex.getRetryAfterSeconds());
+
+        release.countDown();
+        busy.join();
+        queued.join();
+        encoder.destroy();
+    }
+}
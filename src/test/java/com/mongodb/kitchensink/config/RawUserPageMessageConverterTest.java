@@ -0,0 +1,85 @@
+package com.mongodb.kitchensink.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.RawUserPage;
+import com.mongodb.kitchensink.dto.UserResponse;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonObjectId;
+import org.bson.BsonSerializationException;
+import org.bson.BsonString;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawUserPageMessageConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RawUserPageMessageConverter converter = new RawUserPageMessageConverter(objectMapper);
+
+    private static RawBsonDocument raw(BsonDocument doc) {
+        return new RawBsonDocument(doc, new BsonDocumentCodec());
+    }
+
+    @Test
+    void renders_the_same_json_as_the_mapped_page() throws Exception {
+        ObjectId id = new ObjectId();
+        // Stored order differs from response order, with fields the response does not show
+        RawBsonDocument first = raw(new BsonDocument("email", new BsonString("zoë@example.com"))
+                .append("createdAt", new BsonDateTime(1_700_000_000_000L))
+                .append("_id", new BsonObjectId(id))
+                .append("nested", new BsonDocument("x", new BsonInt32(1)))
+                .append("username", new BsonString("Zoë \"Z\"\n O'Neil"))
+                .append("version", new BsonInt64(7)));
+        RawBsonDocument second = raw(new BsonDocument("_id", new BsonString("legacy-id"))
+                .append("username", new BsonString("Old"))
+                .append("email", new BsonString("old@example.com"))
+                .append("phone", new BsonNull()));
+        PageRequest pageable = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.write(new CountedPage<>(List.of(first, second), pageable, 5, false), out);
+
+        CountedPage<UserResponse> mapped = new CountedPage<>(List.of(
+                new UserResponse(id.toHexString(), "Zoë \"Z\"\n O'Neil", "zoë@example.com", null, 7L, null),
+                new UserResponse("legacy-id", "Old", "old@example.com", null)), pageable, 5, false);
+        // Compared as trees: Jackson's order for Sort's getters is not fixed between JVMs
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(mapped)), objectMapper.readTree(out.toByteArray()));
+    }
+
+    @Test
+    void writes_as_json_through_the_message_converter_contract() throws Exception {
+        RawUserPage page = new RawUserPage(new CountedPage<>(List.of(), PageRequest.of(0, 10), 0, true));
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+        assertTrue(converter.canWrite(RawUserPage.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(RawUserPage.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(CountedPage.class, MediaType.APPLICATION_JSON));
+        converter.write(page, MediaType.APPLICATION_JSON, message);
+
+        assertEquals(MediaType.APPLICATION_JSON, message.getHeaders().getContentType());
+        assertEquals(0, objectMapper.readTree(message.getBodyAsString()).get("totalElements").asInt());
+    }
+
+    @Test
+    void rejects_field_types_the_entity_does_not_store() {
+        RawBsonDocument doc = raw(new BsonDocument("_id", new BsonObjectId()).append("email", new BsonInt32(5)));
+        CountedPage<RawBsonDocument> page = new CountedPage<>(List.of(doc), PageRequest.of(0, 10), 1, true);
+
+        assertThrows(BsonSerializationException.class, () -> converter.write(page, new ByteArrayOutputStream()));
+    }
+}
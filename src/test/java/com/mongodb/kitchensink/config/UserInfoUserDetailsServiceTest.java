@@ -1,6 +1,7 @@
 
 package com.mongodb.kitchensink.config;
 
+import com.mongodb.client.result.UpdateResult;
 import com.mongodb.kitchensink.model.UserInfo;
 import com.mongodb.kitchensink.repository.UserInfoRepository;
 import org.junit.jupiter.api.Test;
@@ -8,9 +9,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,17 +27,57 @@ import static org.mockito.Mockito.*;
 class UserInfoUserDetailsServiceTest {
 
     @Mock UserInfoRepository repo;
+    @Mock MongoTemplate mongoTemplate;
+    @Mock Executor taskExecutor;
+    @Mock CacheManager cacheManager;
+    @Mock Cache cache;
     @InjectMocks UserInfoUserDetailsService svc;
 
     @Test
     void load_user_ok() {
-        when(repo.findByEmail("x@y.com")).thenReturn(Optional.of(UserInfo.builder().email("x@y.com").password("p").roles("ROLES_USER").build()));
+        when(repo.findCredentialsByEmail("x@y.com")).thenReturn(Optional.of(UserInfo.builder().email("x@y.com").password("p").roles("ROLES_USER").build()));
         assertEquals("x@y.com", svc.loadUserByUsername("x@y.com").getUsername());
+        assertEquals("x@y.com", svc.loadUserByUsername(" X@Y.com ").getUsername());
     }
 
     @Test
     void load_user_missing_throws() {
-        when(repo.findByEmail("none")).thenReturn(Optional.empty());
+        when(repo.findCredentialsByEmail("none")).thenReturn(Optional.empty());
         assertThrows(UsernameNotFoundException.class, () -> svc.loadUserByUsername("none"));
     }
+
+    @Test
+    void update_password_writes_new_hash_in_background_and_returns_updated_principal() {
+        doAnswer(a -> { ((Runnable) a.getArgument(0)).run(); return null; }).when(taskExecutor).execute(any());
+        when(mongoTemplate.getCollectionName(UserInfo.class)).thenReturn("users");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq("users")))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(cacheManager.getCache(CacheConfig.USER_DETAILS)).thenReturn(cache);
+        UserInfoUserDetails user = new UserInfoUserDetails(UserInfo.builder().email("x@y.com").password("OLD").roles("ROLES_USER").build());
+
+        UserDetails updated = svc.updatePassword(user, "{bcrypt}NEW");
+
+        assertEquals("{bcrypt}NEW", updated.getPassword());
+        assertEquals("x@y.com", updated.getUsername());
+        verify(taskExecutor).execute(any());
+        // By collection name, so the entity's version is not bumped
+        verify(mongoTemplate).updateFirst(any(Query.class), eq(Update.update("password", "{bcrypt}NEW")), eq("users"));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(UserInfo.class));
+        verify(cache).evict("x@y.com");
+    }
+
+    @Test
+    void update_password_evicts_cached_principal_even_when_hash_changed_meanwhile() {
+        doAnswer(a -> { ((Runnable) a.getArgument(0)).run(); return null; }).when(taskExecutor).execute(any());
+        when(mongoTemplate.getCollectionName(UserInfo.class)).thenReturn("users");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq("users")))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        when(cacheManager.getCache(CacheConfig.USER_DETAILS)).thenReturn(cache);
+        UserInfoUserDetails user = new UserInfoUserDetails(UserInfo.builder().email("x@y.com").password("OLD").roles("ROLES_USER").build());
+
+        svc.updatePassword(user, "{bcrypt}NEW");
+
+        verify(cache).evict("x@y.com");
+        verify(cache, never()).put(any(), any());
+    }
 }
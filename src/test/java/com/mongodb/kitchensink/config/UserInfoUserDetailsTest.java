@@ -1,6 +1,7 @@
 
 package com.mongodb.kitchensink.config;
 
+import com.mongodb.kitchensink.dto.JwtClaims;
 import com.mongodb.kitchensink.model.UserInfo;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.core.GrantedAuthority;
@@ -28,4 +29,15 @@ class UserInfoUserDetailsTest {
         assertTrue(details.isCredentialsNonExpired());
         assertTrue(details.isEnabled());
     }
+
+    @Test
+    void builds_principal_from_token_claims_without_password() {
+        JwtClaims claims = JwtClaims.builder().subject("a@b.com").userId("id1").roles("ROLES_ADMIN").build();
+        UserInfoUserDetails details = new UserInfoUserDetails(claims);
+
+        assertEquals("a@b.com", details.getUsername());
+        assertEquals("id1", details.getId());
+        assertNull(details.getPassword());
+        assertEquals("ROLES_ADMIN", details.getAuthorities().iterator().next().getAuthority());
+    }
 }
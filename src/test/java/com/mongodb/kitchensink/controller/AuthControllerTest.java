@@ -6,7 +6,6 @@ import com.mongodb.kitchensink.dto.UserRequest;
 import com.mongodb.kitchensink.exception.UserCreationException;
 import com.mongodb.kitchensink.service.AuthService;
 import com.mongodb.kitchensink.service.UserInfoService;
-import com.mongodb.kitchensink.service.UserValidation;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,9 +21,8 @@ class AuthControllerTest {
     @Test
     void signup_creates_user_and_returns_201() {
         UserInfoService svc = mock(UserInfoService.class);
-        UserValidation validation = mock(UserValidation.class);
         AuthService authService = mock(AuthService.class);
-        AuthController controller = new AuthController(svc, validation, authService);
+        AuthController controller = new AuthController(svc, authService);
 
         UserRequest req = new UserRequest();
         req.setUsername("John");
@@ -40,10 +38,9 @@ class AuthControllerTest {
     @Test
     void signup_existing_user_throws() {
         UserInfoService svc = mock(UserInfoService.class);
-        UserValidation validation = mock(UserValidation.class);
-        when(validation.isExistingUser(any())).thenReturn(true);
+        doThrow(new UserCreationException("Email already in use!")).when(svc).createUser(any());
         AuthService authService = mock(AuthService.class);
-        AuthController controller = new AuthController(svc, validation, authService);
+        AuthController controller = new AuthController(svc, authService);
 
         UserRequest req = new UserRequest();
         assertThrows(UserCreationException.class, () -> controller.register(req));
@@ -52,10 +49,9 @@ class AuthControllerTest {
     @Test
     void login_returns_token_in_body() {
         UserInfoService svc = mock(UserInfoService.class);
-        UserValidation validation = mock(UserValidation.class);
         AuthService authService = mock(AuthService.class);
         when(authService.login(any(AuthRequest.class))).thenReturn("TOKEN");
-        AuthController controller = new AuthController(svc, validation, authService);
+        AuthController controller = new AuthController(svc, authService);
 
         AuthRequest req = new AuthRequest();
         req.setEmail("john@example.com"); req.setPassword("x");
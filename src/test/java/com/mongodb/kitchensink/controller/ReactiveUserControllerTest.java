@@ -0,0 +1,267 @@
+package com.mongodb.kitchensink.controller;
+
+import com.mongodb.kitchensink.config.ReactiveSecurityConfig;
+import com.mongodb.kitchensink.config.ReactiveUserInfoUserDetailsService;
+import com.mongodb.kitchensink.config.UserInfoUserDetails;
+import com.mongodb.kitchensink.dto.AuthRequest;
+import com.mongodb.kitchensink.dto.JwtClaims;
+import com.mongodb.kitchensink.dto.UserResponse;
+import com.mongodb.kitchensink.dto.UserUpdateRequest;
+import com.mongodb.kitchensink.exception.GlobalExceptionHandler;
+import com.mongodb.kitchensink.model.UserInfo;
+import com.mongodb.kitchensink.service.JwtService;
+import com.mongodb.kitchensink.service.ReactiveAuthService;
+import com.mongodb.kitchensink.service.ReactiveUserInfoService;
+import com.mongodb.kitchensink.service.UserValidation;
+import com.mongodb.kitchensink.util.Constants;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.ReactiveSortHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * The reactive member and auth endpoints behind the real {@link ReactiveSecurityConfig} chain,
+ * bound to a small WebFlux context with the services mocked.
+ */
+@SpringJUnitConfig(ReactiveUserControllerTest.WebConfig.class)
+@ActiveProfiles("reactive")
+class ReactiveUserControllerTest {
+
+    @Configuration
+    @EnableWebFlux
+    @Import({ReactiveSecurityConfig.class, ReactiveUserController.class, ReactiveAuthController.class,
+            GlobalExceptionHandler.class, UserValidation.class})
+    static class WebConfig implements WebFluxConfigurer {
+
+        // Same Pageable and Sort resolvers ReactiveProfileConfig registers
+        @Override
+        public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+            ReactiveSortHandlerMethodArgumentResolver sortResolver = new ReactiveSortHandlerMethodArgumentResolver();
+            configurer.addCustomResolver(sortResolver, new ReactivePageableHandlerMethodArgumentResolver(sortResolver));
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockitoBean ReactiveUserInfoService service;
+    @MockitoBean ReactiveAuthService authService;
+    @MockitoBean JwtService jwtService;
+    @MockitoBean PasswordEncoder passwordEncoder;
+    @MockitoBean ReactiveUserInfoUserDetailsService userDetailsService;
+
+    @Autowired ApplicationContext context;
+
+    private WebTestClient client;
+
+    private static final String ADMIN_TOKEN = "admin-token";
+    private static final String USER_TOKEN = "user-token";
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToApplicationContext(context).build();
+        signedIn(ADMIN_TOKEN, "admin@x.com", Constants.ROLES_ADMIN);
+        signedIn(USER_TOKEN, "user@x.com", Constants.ROLES_USER);
+    }
+
+    private void signedIn(String token, String email, String roles) {
+        JwtClaims claims = JwtClaims.builder().subject(email).roles(roles).issuedAt(new Date()).build();
+        UserInfoUserDetails principal = new UserInfoUserDetails(UserInfo.builder().email(email).password("hash").roles(roles).build());
+        when(jwtService.parseToken(token)).thenReturn(claims);
+        when(userDetailsService.findByUsername(email)).thenReturn(Mono.just(principal));
+        when(jwtService.validateToken(eq(claims), any())).thenReturn(true);
+    }
+
+    private static UserResponse view(String id, String email, long version, Instant updatedAt) {
+        return UserResponse.builder().id(id).name("User").email(email).phone("9876543210").version(version).updatedAt(updatedAt).build();
+    }
+
+    @Test
+    void protected_endpoints_answer_403_without_a_valid_token() {
+        when(jwtService.parseToken("forged")).thenThrow(new JwtException("bad signature"));
+
+        client.get().uri("/rest/members/me").exchange().expectStatus().isForbidden();
+        client.get().uri("/rest/members/me").header(HttpHeaders.AUTHORIZATION, "Bearer forged")
+                .exchange().expectStatus().isForbidden();
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void prometheus_scrape_is_not_open_on_the_application_port() {
+        client.get().uri("/actuator/prometheus").exchange().expectStatus().isForbidden();
+        client.get().uri("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, "Bearer " + USER_TOKEN)
+                .exchange().expectStatus().isForbidden();
+    }
+
+    @Test
+    void public_paths_need_no_token() {
+        client.get().uri("/rest/members/check").exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("API is working!");
+    }
+
+    @Test
+    void bearer_token_resolves_the_principal_for_me() {
+        when(service.getByEmail("user@x.com")).thenReturn(Mono.just(view("u1", "user@x.com", 2, Instant.ofEpochMilli(1_700_000_000_000L))));
+
+        client.get().uri("/rest/members/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + USER_TOKEN).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2-1700000000000\"")
+                .expectBody().jsonPath("$.email").isEqualTo("user@x.com").jsonPath("$.version").isEqualTo(2);
+    }
+
+    @Test
+    void non_admin_cannot_list_users() {
+        client.get().uri("/rest/members/all").header(HttpHeaders.AUTHORIZATION, "Bearer " + USER_TOKEN).exchange()
+                .expectStatus().isForbidden();
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void conditional_get_with_current_etag_is_304_without_loading_the_view() {
+        UserResponse stamp = view("u1", "user@x.com", 4, Instant.ofEpochMilli(1_700_000_000_000L));
+        when(service.getById("u1")).thenReturn(Mono.never());
+        when(service.getStampById("u1")).thenReturn(Mono.just(stamp));
+
+        client.get().uri("/rest/members/u1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + USER_TOKEN)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"4-1700000000000\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4-1700000000000\"")
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void conditional_get_with_stale_etag_returns_the_view() {
+        UserResponse current = view("u1", "user@x.com", 5, Instant.ofEpochMilli(1_700_000_001_000L));
+        when(service.getById("u1")).thenReturn(Mono.just(current));
+        when(service.getStampById("u1")).thenReturn(Mono.just(current));
+
+        client.get().uri("/rest/members/u1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + USER_TOKEN)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"4-1700000000000\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"5-1700000001000\"")
+                .expectBody().jsonPath("$.id").isEqualTo("u1");
+    }
+
+    @Test
+    void conditional_get_of_another_users_record_is_denied() {
+        when(service.getById("a1")).thenReturn(Mono.never());
+        when(service.getStampById("a1")).thenReturn(Mono.just(view("a1", "admin@x.com", 1, Instant.now())));
+
+        client.get().uri("/rest/members/a1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + USER_TOKEN)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1-0\"")
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void all_streams_ndjson_in_the_requested_order() {
+        when(service.stream(isNull(), isNull(), isNull(), isNull(), eq(Sort.by(Sort.Direction.ASC, "email"))))
+                .thenReturn(Flux.just(new UserResponse("u1", "A", "a@x.com", "9876543210"), new UserResponse("u2", "B", "b@x.com", "9876543211")));
+
+        String body = client.get().uri("/rest/members/all?sort=email,asc")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertEquals(2, body.lines().count());
+        assertTrue(body.lines().findFirst().orElseThrow().contains("\"email\":\"a@x.com\""));
+    }
+
+    @Test
+    void search_stream_still_requires_a_filter() {
+        client.get().uri("/rest/members/search")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+        verify(service, never()).stream(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void invalid_registration_is_400_with_field_errors() {
+        client.post().uri("/auth/register-user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"username\":\"J\",\"email\":\"not-an-email\",\"phone\":\"123\",\"password\":\"short\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$." + Constants.ERROR).isEqualTo(Constants.VALIDATION_FAILED)
+                .jsonPath("$." + Constants.DETAILS + ".email").exists()
+                .jsonPath("$." + Constants.DETAILS + ".password").exists();
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void invalid_update_is_400_before_the_service_is_called() {
+        client.put().uri("/rest/members/u1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + USER_TOKEN)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"phone\":\"12\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$." + Constants.DETAILS + ".phone").exists();
+        verify(service, never()).update(any(), any(), any(UserUpdateRequest.class));
+    }
+
+    @Test
+    void malformed_query_parameter_is_400() {
+        client.get().uri("/rest/members/search?email=a&from=yesterday")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void login_returns_bearer_token() {
+        when(authService.login(any(AuthRequest.class))).thenReturn(Mono.just("jwt"));
+
+        client.post().uri("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"email\":\"user@x.com\",\"password\":\"P@ssw0rd1\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.token").isEqualTo("jwt").jsonPath("$.type").isEqualTo("Bearer");
+    }
+}
@@ -1,8 +1,12 @@
 package com.mongodb.kitchensink.controller;
 
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.RawUserPage;
 import com.mongodb.kitchensink.dto.UserResponse;
+import com.mongodb.kitchensink.dto.UserSlice;
 import com.mongodb.kitchensink.dto.UserUpdateRequest;
 import com.mongodb.kitchensink.exception.InvalidFieldException;
+import com.mongodb.kitchensink.service.UserExportService;
 import com.mongodb.kitchensink.service.UserInfoService;
 import com.mongodb.kitchensink.service.UserValidation;
 import org.junit.jupiter.api.Test;
@@ -10,13 +14,23 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.time.Instant;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -26,7 +40,9 @@ class UserControllerTest {
     void healthCheck_returns_ok_response_with_message() {
         UserController controller = new UserController(
                 mock(UserInfoService.class),
-                mock(UserValidation.class)
+                mock(UserValidation.class),
+                mock(UserExportService.class),
+                false
         );
         ResponseEntity<String> response = controller.healthCheck();
         assertEquals(200, response.getStatusCodeValue());
@@ -37,55 +53,102 @@ class UserControllerTest {
     void get_user_by_id_happy_path() {
         UserInfoService svc = mock(UserInfoService.class);
         UserValidation val = mock(UserValidation.class);
-        when(svc.getById("id1")).thenReturn(new UserResponse("id1", "A", "a@b.com", "1"));
-        UserController c = new UserController(svc, val);
+        UserController c = new UserController(svc, val, mock(UserExportService.class), false);
 
         Authentication auth = mock(Authentication.class);
         when(auth.getName()).thenReturn("admin@example.com");
+        UserResponse target = new UserResponse("id1", "A", "a@b.com", "1");
+        when(svc.getById("id1")).thenReturn(target);
 
-        ResponseEntity<?> res = c.getUserDetails("id1", auth);
+        ResponseEntity<?> res = c.getUserDetails("id1", auth, new ServletWebRequest(new MockHttpServletRequest("GET", "/rest/members/id1")));
         assertEquals(200, res.getStatusCode().value());
-        verify(val).validateAdminOrUserById(eq("id1"), eq(auth));
+        assertSame(target, res.getBody());
+        verify(val).validateReadAdminOrUser(target, auth);
     }
 
     @Test
     void update_user_calls_service() {
         UserInfoService svc = mock(UserInfoService.class);
         UserValidation val = mock(UserValidation.class);
-        UserController c = new UserController(svc, val);
+        UserController c = new UserController(svc, val, mock(UserExportService.class), false);
 
         UserUpdateRequest req = new UserUpdateRequest();
         Authentication auth = mock(Authentication.class);
-        when(svc.update(eq("id1"), any(UserUpdateRequest.class))).thenReturn(new UserResponse("id1", "A", "e", "p"));
+        when(val.ownerScope(auth)).thenReturn("e");
+        when(svc.update(eq("id1"), eq("e"), any(UserUpdateRequest.class))).thenReturn(new UserResponse("id1", "A", "e", "p"));
 
         ResponseEntity<?> res = c.updateUser("id1", req, auth);
         assertEquals(200, res.getStatusCode().value());
-        verify(val).validateAdminOrUserById(eq("id1"), eq(auth));
+        verify(val).ownerScope(auth);
+        verify(svc).update("id1", "e", req);
     }
 
     @Test
     void delete_user_calls_service_and_returns_204() {
         UserInfoService svc = mock(UserInfoService.class);
         UserValidation val = mock(UserValidation.class);
-        UserController c = new UserController(svc, val);
+        UserController c = new UserController(svc, val, mock(UserExportService.class), false);
         Authentication auth = mock(Authentication.class);
+        when(val.ownerScope(auth)).thenReturn("a@b.com");
 
         ResponseEntity<Void> res = c.deleteUser("id1", auth);
         assertEquals(204, res.getStatusCode().value());
-        verify(svc).delete("id1");
-        verify(val).validateDeleteAdminOrUserById(eq("id1"), eq(auth));
+        verify(svc).delete("id1", "a@b.com");
+    }
+
+    @Test
+    void matching_etag_on_me_returns_304_without_loading_the_view() {
+        UserInfoService svc = mock(UserInfoService.class);
+        UserController c = new UserController(svc, mock(UserValidation.class), mock(UserExportService.class), false);
+        Authentication auth = mock(Authentication.class);
+        when(auth.getName()).thenReturn("user@example.com");
+        UserResponse stamp = UserResponse.builder().id("id").email("user@example.com").version(3L)
+                .updatedAt(Instant.parse("2024-05-01T10:00:00.123Z")).build();
+        when(svc.getStampByEmail("user@example.com")).thenReturn(stamp);
+
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/rest/members/me");
+        req.addHeader(HttpHeaders.IF_NONE_MATCH, "\"3-1714557600123\"");
+        ResponseEntity<?> res = c.getCurrentUser(auth, new ServletWebRequest(req, new MockHttpServletResponse()));
+
+        assertEquals(304, res.getStatusCode().value());
+        assertNull(res.getBody());
+        assertEquals("\"3-1714557600123\"", res.getHeaders().getETag());
+        verify(svc, never()).getByEmail(any());
+    }
+
+    @Test
+    void stale_etag_on_user_by_id_returns_body_with_new_validators() {
+        UserInfoService svc = mock(UserInfoService.class);
+        UserValidation val = mock(UserValidation.class);
+        UserController c = new UserController(svc, val, mock(UserExportService.class), false);
+        Authentication auth = mock(Authentication.class);
+        UserResponse view = UserResponse.builder().id("id1").email("a@b.com").version(4L)
+                .updatedAt(Instant.parse("2024-05-01T10:00:00Z")).build();
+        when(svc.getStampById("id1")).thenReturn(view);
+        when(svc.getById("id1")).thenReturn(view);
+
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/rest/members/id1");
+        req.addHeader(HttpHeaders.IF_NONE_MATCH, "\"3-1714557600000\"");
+        ResponseEntity<?> res = c.getUserDetails("id1", auth, new ServletWebRequest(req, new MockHttpServletResponse()));
+
+        assertEquals(200, res.getStatusCode().value());
+        assertSame(view, res.getBody());
+        assertEquals("\"4-1714557600000\"", res.getHeaders().getETag());
+        assertEquals(1714557600000L, res.getHeaders().getLastModified());
+        // Access is checked before revealing whether the resource changed
+        verify(val, times(2)).validateReadAdminOrUser(view, auth);
     }
 
     @Test
     void me_returns_current_user_by_email() {
         UserInfoService svc = mock(UserInfoService.class);
         UserValidation val = mock(UserValidation.class);
-        UserController c = new UserController(svc, val);
+        UserController c = new UserController(svc, val, mock(UserExportService.class), false);
         Authentication auth = mock(Authentication.class);
         when(auth.getName()).thenReturn("user@example.com");
         when(svc.getByEmail("user@example.com")).thenReturn(new UserResponse("id", "U", "user@example.com", "p"));
 
-        ResponseEntity<?> res = c.getCurrentUser(auth);
+        ResponseEntity<?> res = c.getCurrentUser(auth, new ServletWebRequest(new MockHttpServletRequest("GET", "/rest/members/me")));
         assertEquals(200, res.getStatusCode().value());
         verify(svc).getByEmail("user@example.com");
     }
@@ -94,21 +157,21 @@ class UserControllerTest {
     void search_requires_at_least_one_param() {
         UserInfoService svc = mock(UserInfoService.class);
         UserValidation val = mock(UserValidation.class);
-        UserController c = new UserController(svc, val);
+        UserController c = new UserController(svc, val, mock(UserExportService.class), false);
         Authentication auth = mock(Authentication.class);
 
-        assertThrows(InvalidFieldException.class, () -> c.searchUsers(" ", " ", null, null, PageRequest.of(0, 10), auth));
+        assertThrows(InvalidFieldException.class, () -> c.searchUsers(" ", " ", null, null, PageRequest.of(0, 10), null, auth));
     }
 
     @Test
     void search_with_email_and_name_calls_service_and_validates_admin() {
         UserInfoService svc = mock(UserInfoService.class);
         UserValidation val = mock(UserValidation.class);
-        UserController c = new UserController(svc, val);
+        UserController c = new UserController(svc, val, mock(UserExportService.class), false);
         Authentication auth = mock(Authentication.class);
         Page<UserResponse> page = new PageImpl<>(List.of(new UserResponse("id", "A", "e", "p")));
         when(svc.search(eq("a@b.com"), eq("Alice"), isNull(Instant.class), isNull(Instant.class), any(Pageable.class))).thenReturn(page);
-        ResponseEntity<?> res = c.searchUsers("a@b.com", "Alice", null, null, PageRequest.of(0, 10), auth);
+        ResponseEntity<?> res = c.searchUsers("a@b.com", "Alice", null, null, PageRequest.of(0, 10), null, auth);
         assertEquals(200, res.getStatusCode().value());
         verify(val).validateAdmin(auth);
         verify(svc).search(eq("a@b.com"), eq("Alice"), isNull(Instant.class), isNull(Instant.class), any(Pageable.class));
@@ -118,17 +181,83 @@ class UserControllerTest {
     void getAll_and_getAllUsers_calls_validation_and_service() {
         UserInfoService svc = mock(UserInfoService.class);
         UserValidation val = mock(UserValidation.class);
-        UserController c = new UserController(svc, val);
+        UserController c = new UserController(svc, val, mock(UserExportService.class), false);
         Authentication auth = mock(Authentication.class);
 
         when(svc.getAll(PageRequest.of(0, 10))).thenReturn(new PageImpl<>(List.of(new UserResponse("id", "n", "e", "p"))));
-        ResponseEntity<?> p = c.getAllUsers(PageRequest.of(0, 10), auth);
+        ResponseEntity<?> p = c.getAllUsers(PageRequest.of(0, 10), null, auth);
         assertEquals(200, p.getStatusCode().value());
         verify(val).validateAdmin(auth);
 
-        when(svc.getAllUsers()).thenReturn(List.of(new UserResponse("id", "n", "e", "p")));
-        ResponseEntity<?> all = c.getAllUsers(auth);
+        ResponseEntity<StreamingResponseBody> all = c.getAllUsers("ndjson", auth);
         assertEquals(200, all.getStatusCode().value());
+        assertEquals(MediaType.APPLICATION_NDJSON, all.getHeaders().getContentType());
         verify(val, times(2)).validateAdmin(auth);
     }
+
+    @Test
+    void raw_rendering_serves_all_and_search_from_raw_pages() {
+        UserInfoService svc = mock(UserInfoService.class);
+        UserController c = new UserController(svc, mock(UserValidation.class), mock(UserExportService.class), true);
+        Authentication auth = mock(Authentication.class);
+        RawUserPage raw = new RawUserPage(new CountedPage<>(List.of(), PageRequest.of(0, 10), 0, true));
+        when(svc.searchRaw(any(), any(), any(), any(), any(Pageable.class))).thenReturn(raw);
+
+        assertSame(raw, c.getAllUsers(PageRequest.of(0, 10), null, auth).getBody());
+        assertSame(raw, c.searchUsers("a@b.com", null, null, null, PageRequest.of(0, 10), null, auth).getBody());
+        verify(svc).searchRaw(isNull(), isNull(), isNull(), isNull(), eq(PageRequest.of(0, 10)));
+        verify(svc).searchRaw(eq("a@b.com"), isNull(), isNull(), isNull(), eq(PageRequest.of(0, 10)));
+        verify(svc, never()).getAll(any());
+        verify(svc, never()).search(any(), any(), any(), any(), any());
+
+        // Cursor paging keeps its own response type
+        c.getAllUsers(PageRequest.of(0, 10), "", auth);
+        verify(svc).scroll(null, null, null, null, "", 10);
+    }
+
+    @Test
+    void export_streams_through_export_service_and_rejects_unknown_format() throws Exception {
+        UserValidation val = mock(UserValidation.class);
+        UserExportService export = mock(UserExportService.class);
+        UserController c = new UserController(mock(UserInfoService.class), val, export, false);
+        Authentication auth = mock(Authentication.class);
+
+        ResponseEntity<StreamingResponseBody> res = c.getAllUsers("csv", auth);
+        OutputStream out = new ByteArrayOutputStream();
+        res.getBody().writeTo(out);
+
+        verify(export).export(UserExportService.Format.CSV, out);
+        assertThrows(InvalidFieldException.class, () -> c.getAllUsers("xml", auth));
+    }
+
+    @Test
+    void getAll_with_cursor_uses_scroll_instead_of_page() {
+        UserInfoService svc = mock(UserInfoService.class);
+        UserValidation val = mock(UserValidation.class);
+        UserController c = new UserController(svc, val, mock(UserExportService.class), false);
+        Authentication auth = mock(Authentication.class);
+        UserSlice slice = UserSlice.builder().content(List.of()).size(10).hasNext(false).build();
+        when(svc.scroll(null, null, null, null, "", 10)).thenReturn(slice);
+
+        ResponseEntity<?> res = c.getAllUsers(PageRequest.of(0, 10), "", auth);
+
+        assertEquals(slice, res.getBody());
+        verify(val).validateAdmin(auth);
+        verify(svc, never()).getAll(any(Pageable.class));
+    }
+
+    @Test
+    void search_with_cursor_uses_scroll() {
+        UserInfoService svc = mock(UserInfoService.class);
+        UserValidation val = mock(UserValidation.class);
+        UserController c = new UserController(svc, val, mock(UserExportService.class), false);
+        Authentication auth = mock(Authentication.class);
+        UserSlice slice = UserSlice.builder().content(List.of()).size(5).hasNext(false).build();
+        when(svc.scroll("a@b.com", null, null, null, "abc", 5)).thenReturn(slice);
+
+        ResponseEntity<?> res = c.searchUsers("a@b.com", null, null, null, PageRequest.of(0, 5), "abc", auth);
+
+        assertEquals(slice, res.getBody());
+        verify(svc, never()).search(any(), any(), any(), any(), any(Pageable.class));
+    }
 }
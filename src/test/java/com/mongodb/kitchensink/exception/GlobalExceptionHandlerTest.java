@@ -2,12 +2,19 @@
 package com.mongodb.kitchensink.exception;
 
 import com.mongodb.kitchensink.util.Constants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
 
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -16,7 +23,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class GlobalExceptionHandlerTest {
 
-    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(registry);
 
     @Test
     void handleUnreadable_returns_400() {
@@ -25,11 +33,37 @@ class GlobalExceptionHandlerTest {
         assertEquals(Constants.BAD_REQUEST, res.getBody().get(Constants.ERROR));
     }
 
+    @Test
+    void handleValidation_reactive_returns_400_with_field_errors() throws Exception {
+        BeanPropertyBindingResult result = new BeanPropertyBindingResult(new Object(), "userRequest");
+        result.addError(new FieldError("userRequest", "email", "must be a well-formed email address"));
+        WebExchangeBindException ex = new WebExchangeBindException(
+                new MethodParameter(Object.class.getMethod("equals", Object.class), 0), result);
+        ResponseEntity<Map<String,Object>> res = handler.handleValidation(ex);
+        assertEquals(400, res.getStatusCode().value());
+        assertEquals(Constants.VALIDATION_FAILED, res.getBody().get(Constants.ERROR));
+        assertEquals(Map.of("email", "must be a well-formed email address"), res.getBody().get(Constants.DETAILS));
+    }
+
+    @Test
+    void handleInput_returns_400_with_reason() {
+        ResponseEntity<Map<String,Object>> res = handler.handleInput(new ServerWebInputException("Type mismatch."));
+        assertEquals(400, res.getStatusCode().value());
+        assertEquals("Type mismatch.", res.getBody().get(Constants.DETAILS));
+    }
+
     @Test
     void handleAuth_returns_401() {
         ResponseEntity<Map<String,Object>> res = handler.handleAuth(new BadCredentialsException("nope"));
         assertEquals(401, res.getStatusCode().value());
         assertEquals(Constants.UNAUTHORIZED, res.getBody().get(Constants.ERROR));
+        assertEquals(1.0, registry.counter(Constants.METRIC_AUTH_FAILURES, Constants.TAG_CAUSE, "bad_credentials").count());
+    }
+
+    @Test
+    void handleAuth_counts_unknown_types_as_other() {
+        handler.handleAuth(new InsufficientAuthenticationException("no token"));
+        assertEquals(1.0, registry.counter(Constants.METRIC_AUTH_FAILURES, Constants.TAG_CAUSE, "other").count());
     }
 
     @Test
@@ -37,6 +71,7 @@ class GlobalExceptionHandlerTest {
         ResponseEntity<Map<String,Object>> res = handler.handleDenied(new AccessDeniedException("denied"));
         assertEquals(403, res.getStatusCode().value());
         assertEquals(Constants.FORBIDDEN, res.getBody().get(Constants.ERROR));
+        assertEquals(1.0, registry.counter(Constants.METRIC_AUTH_FAILURES, Constants.TAG_CAUSE, "access_denied").count());
     }
 
     @Test
@@ -53,6 +88,14 @@ class GlobalExceptionHandlerTest {
         assertEquals(Constants.CONFLICT, res.getBody().get(Constants.ERROR));
     }
 
+    @Test
+    void handleHashingUnavailable_returns_503_with_retry_after() {
+        ResponseEntity<Map<String,Object>> res = handler.handleHashingUnavailable(new PasswordHashingUnavailableException("busy", 2));
+        assertEquals(503, res.getStatusCode().value());
+        assertEquals("2", res.getHeaders().getFirst("Retry-After"));
+        assertEquals(Constants.SERVICE_UNAVAILABLE, res.getBody().get(Constants.ERROR));
+    }
+
     @Test
     void handleGeneric_returns_500() {
         ResponseEntity<Map<String,Object>> res = handler.handleGeneric(new RuntimeException("boom"));
@@ -0,0 +1,90 @@
+package com.mongodb.kitchensink.filter;
+
+import com.mongodb.kitchensink.config.ReactiveUserInfoUserDetailsService;
+import com.mongodb.kitchensink.config.UserInfoUserDetails;
+import com.mongodb.kitchensink.dto.JwtClaims;
+import com.mongodb.kitchensink.model.UserInfo;
+import com.mongodb.kitchensink.service.JwtService;
+import com.mongodb.kitchensink.util.Constants;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JwtAuthWebFilterTest {
+
+    private final JwtService jwtService = mock(JwtService.class);
+    private final ReactiveUserInfoUserDetailsService userDetailsService = mock(ReactiveUserInfoUserDetailsService.class);
+
+    private Authentication run(JwtAuthWebFilter filter, JwtClaims claims) {
+        when(jwtService.parseToken("t")).thenReturn(claims);
+        when(jwtService.validateToken(any(JwtClaims.class), any())).thenReturn(true);
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/rest/members/me").header(HttpHeaders.AUTHORIZATION, "Bearer t"));
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        WebFilterChain chain = ex -> ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .doOnNext(seen::set)
+                .then();
+        filter.filter(exchange, chain).block();
+        return seen.get();
+    }
+
+    private static JwtClaims claims(long ageMs) {
+        return JwtClaims.builder().subject("ann@example.com").userId("u1").roles(Constants.ROLES_USER)
+                .issuedAt(new Date(System.currentTimeMillis() - ageMs)).build();
+    }
+
+    @Test
+    void fresh_token_uses_the_claims_principal_without_a_lookup() {
+        Authentication auth = run(new JwtAuthWebFilter(jwtService, userDetailsService, true, 60_000), claims(0));
+
+        assertNotNull(auth);
+        assertEquals("ann@example.com", auth.getName());
+        assertEquals(Constants.ROLES_USER, auth.getAuthorities().iterator().next().getAuthority());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void old_token_or_disabled_setting_loads_the_user() {
+        UserInfoUserDetails stored = new UserInfoUserDetails(
+                UserInfo.builder().email("ann@example.com").password("hash").roles(Constants.ROLES_ADMIN).build());
+        when(userDetailsService.findByUsername("ann@example.com")).thenReturn(Mono.just(stored));
+
+        Authentication old = run(new JwtAuthWebFilter(jwtService, userDetailsService, true, 60_000), claims(120_000));
+        Authentication disabled = run(new JwtAuthWebFilter(jwtService, userDetailsService, false, 60_000), claims(0));
+
+        assertSame(stored, old.getPrincipal());
+        assertSame(stored, disabled.getPrincipal());
+        verify(userDetailsService, times(2)).findByUsername("ann@example.com");
+    }
+
+    @Test
+    void token_rejected_by_validation_leaves_the_request_anonymous() {
+        JwtAuthWebFilter filter = new JwtAuthWebFilter(jwtService, userDetailsService, true, 60_000);
+        when(jwtService.parseToken("t")).thenReturn(claims(0));
+        when(jwtService.validateToken(any(JwtClaims.class), any())).thenReturn(false);
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/rest/members/me").header(HttpHeaders.AUTHORIZATION, "Bearer t"));
+        AtomicReference<Boolean> authenticated = new AtomicReference<>(false);
+        WebFilterChain chain = ex -> ReactiveSecurityContextHolder.getContext()
+                .doOnNext(ctx -> authenticated.set(ctx.getAuthentication() != null))
+                .then();
+
+        filter.filter(exchange, chain).block();
+
+        assertFalse(authenticated.get());
+    }
+}
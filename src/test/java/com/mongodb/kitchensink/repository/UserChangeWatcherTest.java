@@ -0,0 +1,90 @@
+package com.mongodb.kitchensink.repository;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.kitchensink.config.CacheConfig;
+import com.mongodb.kitchensink.dto.UserResponse;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import static org.mockito.Mockito.*;
+
+class UserChangeWatcherTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final UserViewCache cache = mock(UserViewCache.class);
+    private final Cache userDetails = mock(Cache.class);
+    private final CacheManager cacheManager = mock(CacheManager.class);
+    private final UserChangeWatcher watcher;
+
+    UserChangeWatcherTest() {
+        when(cacheManager.getCache(CacheConfig.USER_DETAILS)).thenReturn(userDetails);
+        watcher = new UserChangeWatcher(mongoTemplate, cache, cacheManager, false);
+    }
+
+    private static ChangeStreamDocument<Document> event(OperationType type, BsonDocument key, Document fullDocument) {
+        return new ChangeStreamDocument<>(type.getValue(), new BsonDocument(), null, null, fullDocument, null, key, null, null, null, null, null, null, null);
+    }
+
+    private static ChangeStreamDocument<Document> event(OperationType type, BsonDocument key) {
+        return event(type, key, null);
+    }
+
+    @Test
+    void updates_evict_view_by_id_and_principal_by_looked_up_email() {
+        ObjectId id = new ObjectId();
+        BsonDocument key = new BsonDocument("_id", new BsonObjectId(id));
+
+        watcher.apply(event(OperationType.UPDATE, key, new Document("email", "a@x.com")));
+
+        verify(cache).evict(id.toHexString());
+        verify(userDetails).evict("a@x.com");
+        verify(cache, never()).clear();
+        verify(userDetails, never()).clear();
+    }
+
+    @Test
+    void deletes_resolve_the_principal_through_the_cached_view() {
+        ObjectId id = new ObjectId();
+        BsonDocument key = new BsonDocument("_id", new BsonObjectId(id));
+        when(cache.get(id.toHexString())).thenReturn(new UserResponse(id.toHexString(), "A", "a@x.com", "9876543210"));
+
+        watcher.apply(event(OperationType.DELETE, key));
+
+        verify(cache).evict(id.toHexString());
+        verify(userDetails).evict("a@x.com");
+        verify(userDetails, never()).clear();
+    }
+
+    @Test
+    void unresolvable_delete_drops_every_cached_principal() {
+        ObjectId id = new ObjectId();
+
+        watcher.apply(event(OperationType.DELETE, new BsonDocument("_id", new BsonObjectId(id))));
+
+        verify(cache).evict(id.toHexString());
+        verify(userDetails).clear();
+    }
+
+    @Test
+    void collection_level_events_clear_everything() {
+        watcher.apply(event(OperationType.DROP, null));
+        watcher.apply(event(OperationType.INVALIDATE, null));
+
+        verify(cache, times(2)).clear();
+        verify(userDetails, times(2)).clear();
+        verify(cache, never()).evict(any());
+    }
+
+    @Test
+    void disabled_watcher_never_opens_a_stream() {
+        watcher.start();
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,86 @@
+package com.mongodb.kitchensink.repository;
+
+import com.mongodb.kitchensink.config.CacheConfig;
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.UserSearchCriteria;
+import com.mongodb.kitchensink.model.UserInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserCounterTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.USER_COUNTS);
+
+    private final UserSearchCriteria all = UserSearchCriteria.builder().build();
+    private final UserSearchCriteria byEmail = UserSearchCriteria.builder().emailPrefix("a").build();
+    private final List<UserInfo> fullPage = Collections.nCopies(10, new UserInfo());
+
+    private UserCounter counter(UserCounter.Strategy strategy) {
+        return new UserCounter(mongoTemplate, cacheManager, strategy);
+    }
+
+    @Test
+    void short_first_page_needs_no_count() {
+        CountedPage<UserInfo> page = counter(UserCounter.Strategy.EXACT)
+                .page(List.of(new UserInfo()), PageRequest.of(0, 10), all, new Query());
+
+        assertEquals(1, page.getTotalElements());
+        assertTrue(page.isTotalExact());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void exact_counts_every_time() {
+        when(mongoTemplate.count(any(Query.class), eq(UserInfo.class))).thenReturn(42L);
+        UserCounter counter = counter(UserCounter.Strategy.EXACT);
+
+        counter.page(fullPage, PageRequest.of(0, 10), byEmail, new Query());
+        CountedPage<UserInfo> page = counter.page(fullPage, PageRequest.of(1, 10), byEmail, new Query());
+
+        assertEquals(42, page.getTotalElements());
+        assertTrue(page.isTotalExact());
+        verify(mongoTemplate, times(2)).count(any(Query.class), eq(UserInfo.class));
+    }
+
+    @Test
+    void cached_reuses_total_per_filter_until_a_write() {
+        when(mongoTemplate.count(any(Query.class), eq(UserInfo.class))).thenReturn(42L, 43L);
+        UserCounter counter = counter(UserCounter.Strategy.CACHED);
+
+        assertTrue(counter.page(fullPage, PageRequest.of(0, 10), byEmail, new Query()).isTotalExact());
+        CountedPage<UserInfo> hit = counter.page(fullPage, PageRequest.of(1, 10), byEmail, new Query());
+        assertEquals(42, hit.getTotalElements());
+        assertFalse(hit.isTotalExact());
+        verify(mongoTemplate, times(1)).count(any(Query.class), eq(UserInfo.class));
+
+        counter.onAfterSave(null);
+
+        assertEquals(43, counter.page(fullPage, PageRequest.of(1, 10), byEmail, new Query()).getTotalElements());
+    }
+
+    @Test
+    void estimated_uses_collection_metadata_only_when_unfiltered() {
+        when(mongoTemplate.estimatedCount(UserInfo.class)).thenReturn(1_000_000L);
+        when(mongoTemplate.count(any(Query.class), eq(UserInfo.class))).thenReturn(42L);
+        UserCounter counter = counter(UserCounter.Strategy.ESTIMATED);
+
+        CountedPage<UserInfo> unfiltered = counter.page(fullPage, PageRequest.of(3, 10), all, new Query());
+        assertEquals(1_000_000L, unfiltered.getTotalElements());
+        assertFalse(unfiltered.isTotalExact());
+
+        assertEquals(42, counter.page(fullPage, PageRequest.of(3, 10), byEmail, new Query()).getTotalElements());
+        verify(mongoTemplate).count(any(Query.class), eq(UserInfo.class));
+    }
+}
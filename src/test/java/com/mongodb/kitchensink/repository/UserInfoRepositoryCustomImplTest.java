@@ -0,0 +1,170 @@
+package com.mongodb.kitchensink.repository;
+
+import com.mongodb.kitchensink.dto.KeysetCursor;
+import com.mongodb.kitchensink.dto.UserSearchCriteria;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import com.mongodb.kitchensink.model.UserInfo;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionCallback;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserInfoRepositoryCustomImplTest {
+
+    @Test
+    void prefix_regex_is_anchored_and_escaped() {
+        assertEquals("^john\\.doe\\+1@", UserInfoRepositoryCustomImpl.prefixRegex("john.doe+1@"));
+    }
+
+    @Test
+    void combines_any_mix_of_filters() {
+        Instant from = Instant.parse("2024-01-01T00:00:00Z");
+        UserSearchCriteria c = UserSearchCriteria.builder().namePrefix("jo").createdFrom(from).build();
+
+        Document doc = UserInfoRepositoryCustomImpl.toCriteria(c).getCriteriaObject();
+        List<?> and = (List<?>) doc.get("$and");
+        assertEquals(2, and.size());
+        assertTrue(((Document) and.get(0)).containsKey("usernameLower"));
+        assertEquals(from, ((Document) ((Document) and.get(1)).get("createdAt")).get("$gte"));
+    }
+
+    @Test
+    void empty_criteria_matches_everything() {
+        assertTrue(UserInfoRepositoryCustomImpl.toCriteria(UserSearchCriteria.builder().build()).getCriteriaObject().isEmpty());
+    }
+
+    @Test
+    void cursor_adds_seek_predicate_after_filters() {
+        Instant at = Instant.parse("2024-05-01T10:00:00Z");
+        String id = "65f000000000000000000002";
+        UserSearchCriteria c = UserSearchCriteria.builder().emailPrefix("a").build();
+
+        Document doc = UserInfoRepositoryCustomImpl.toCriteria(c, new KeysetCursor(at, id)).getCriteriaObject();
+        List<?> and = (List<?>) doc.get("$and");
+        assertEquals(2, and.size());
+        List<?> or = (List<?>) ((Document) and.get(1)).get("$or");
+        assertEquals(at, ((Document) ((Document) or.get(0)).get("createdAt")).get("$lt"));
+        Document tie = (Document) or.get(1);
+        assertEquals(at, tie.get("createdAt"));
+        assertEquals(new ObjectId(id), ((Document) tie.get("id")).get("$lt"));
+    }
+
+    @Test
+    void list_and_scroll_queries_project_response_fields_only() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        UserInfoRepositoryCustomImpl repo = new UserInfoRepositoryCustomImpl(mongoTemplate, mock(UserCounter.class));
+        UserSearchCriteria all = UserSearchCriteria.builder().build();
+
+        repo.search(all, PageRequest.of(0, 10));
+        repo.scroll(all, null, 11);
+
+        ArgumentCaptor<Query> cap = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(cap.capture(), eq(UserInfo.class));
+        Document listFields = cap.getAllValues().get(0).getFieldsObject();
+        assertEquals(Set.of("username", "email", "phone", "version"), listFields.keySet());
+        Document scrollFields = cap.getAllValues().get(1).getFieldsObject();
+        assertTrue(scrollFields.containsKey("createdAt"));
+        assertFalse(scrollFields.containsKey("password"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void raw_search_maps_the_page_query_and_reads_raw_bson() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        UserCounter counter = mock(UserCounter.class);
+        UserInfoRepositoryCustomImpl repo = new UserInfoRepositoryCustomImpl(mongoTemplate, counter);
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        when(mongoTemplate.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        MongoCollection<Document> users = mock(MongoCollection.class);
+        MongoCollection<RawBsonDocument> rawUsers = mock(MongoCollection.class);
+        FindIterable<RawBsonDocument> find = mock(FindIterable.class, RETURNS_SELF);
+        when(users.withDocumentClass(RawBsonDocument.class)).thenReturn(rawUsers);
+        when(rawUsers.find(any(Document.class))).thenReturn(find);
+        when(find.into(anyList())).thenAnswer(a -> a.getArgument(0));
+        when(mongoTemplate.execute(eq(UserInfo.class), any(CollectionCallback.class)))
+                .thenAnswer(a -> a.<CollectionCallback<?>>getArgument(1).doInCollection(users));
+        UserSearchCriteria criteria = UserSearchCriteria.builder().emailPrefix("a").build();
+        PageRequest pageable = PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+
+        repo.searchRaw(criteria, pageable);
+
+        ArgumentCaptor<Document> filter = ArgumentCaptor.forClass(Document.class);
+        ArgumentCaptor<Document> sort = ArgumentCaptor.forClass(Document.class);
+        ArgumentCaptor<Document> fields = ArgumentCaptor.forClass(Document.class);
+        verify(rawUsers).find(filter.capture());
+        verify(find).sort(sort.capture());
+        verify(find).projection(fields.capture());
+        verify(find).skip(20);
+        verify(find).limit(10);
+        assertTrue(filter.getValue().containsKey("$and"));
+        assertEquals(List.of("createdAt", "_id"), List.copyOf(sort.getValue().keySet()));
+        assertEquals(Set.of("username", "email", "phone", "version"), fields.getValue().keySet());
+        verify(counter).page(anyList(), eq(pageable), eq(criteria), any(Query.class));
+    }
+
+    @Test
+    void update_view_filters_by_owner_and_version_and_bumps_version() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        UserCounter counter = mock(UserCounter.class);
+        UserInfoRepositoryCustomImpl repo = new UserInfoRepositoryCustomImpl(mongoTemplate, counter);
+        UserInfo updated = UserInfo.builder().id("id1").version(4L).build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(UserInfo.class))).thenReturn(updated);
+
+        assertSame(updated, repo.updateView("id1", "a@x.com", 3L, new Update().set("phone", "9876543210")));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(UserInfo.class));
+        Document filter = query.getValue().getQueryObject();
+        assertEquals("a@x.com", filter.get("email"));
+        assertEquals(3L, filter.get("version"));
+        assertFalse(query.getValue().getFieldsObject().containsKey("password"));
+        Document u = update.getValue().getUpdateObject();
+        assertEquals(1, ((Document) u.get("$inc")).get("version"));
+        assertTrue(((Document) u.get("$set")).containsKey("updatedAt"));
+        assertTrue(options.getValue().isReturnNew());
+        verify(counter).invalidate();
+    }
+
+    @Test
+    void delete_non_admin_guards_role_and_owner_in_the_filter() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        UserCounter counter = mock(UserCounter.class);
+        UserInfoRepositoryCustomImpl repo = new UserInfoRepositoryCustomImpl(mongoTemplate, counter);
+
+        assertNull(repo.deleteNonAdmin("id1", "a@x.com"));
+        verify(counter, never()).invalidate();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndRemove(query.capture(), eq(UserInfo.class));
+        Document filter = query.getValue().getQueryObject();
+        assertEquals("a@x.com", filter.get("email"));
+        assertTrue(((Document) filter.get("roles")).containsKey("$not"));
+        assertEquals(Set.of("email"), query.getValue().getFieldsObject().keySet());
+    }
+}
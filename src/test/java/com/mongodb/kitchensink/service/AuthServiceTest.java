@@ -1,9 +1,9 @@
 
 package com.mongodb.kitchensink.service;
 
+import com.mongodb.kitchensink.config.UserInfoUserDetails;
 import com.mongodb.kitchensink.dto.AuthRequest;
 import com.mongodb.kitchensink.model.UserInfo;
-import com.mongodb.kitchensink.repository.UserInfoRepository;
 import com.mongodb.kitchensink.util.Constants;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,8 +14,6 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 
-import java.util.Optional;
-
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -24,21 +22,21 @@ class AuthServiceTest {
 
     @Mock AuthenticationManager authenticationManager;
     @Mock JwtService jwtService;
-    @Mock UserInfoRepository userRepo;
     @InjectMocks AuthService authService;
 
     @Test
     void login_when_authenticated_returns_token() {
         AuthRequest req = new AuthRequest();
-        req.setEmail("john@example.com");
+        req.setEmail(" John@Example.com");
         req.setPassword("pw");
 
         Authentication auth = mock(Authentication.class);
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(auth);
         when(auth.isAuthenticated()).thenReturn(true);
-        when(userRepo.findByEmail("john@example.com")).thenReturn(Optional.of(UserInfo.builder().email("john@example.com").roles("ROLES_ADMIN").build()));
-        when(jwtService.generateToken("john@example.com","ROLES_ADMIN")).thenReturn("TOKEN");
+        when(auth.getPrincipal()).thenReturn(new UserInfoUserDetails(UserInfo.builder().id("id1").email("john@example.com").password("enc").roles("ROLES_ADMIN").build()));
+        when(jwtService.generateToken("john@example.com","ROLES_ADMIN","id1")).thenReturn("TOKEN");
 
+        // token is issued from the authenticated principal, not from a second lookup or the raw email
         String token = authService.login(req);
         assertEquals("TOKEN", token);
     }
@@ -55,6 +53,6 @@ class AuthServiceTest {
 
         String token = authService.login(req);
         assertEquals(Constants.STRING_EMPTY, token);
-        verify(jwtService, never()).generateToken(anyString(), anyString());
+        verify(jwtService, never()).generateToken(anyString(), anyString(), any());
     }
 }
@@ -2,6 +2,11 @@ package com.mongodb.kitchensink.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.mongodb.kitchensink.dto.JwtClaims;
+import com.mongodb.kitchensink.util.Constants;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import java.lang.reflect.Field;
 import java.util.Date;
 
@@ -13,6 +18,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 public class JwtServiceTest {
 
     private JwtService jwtService;
+    private SimpleMeterRegistry registry;
 
     private static void setField(Object target, String name, Object value) throws Exception {
         Field f = target.getClass().getDeclaredField(name);
@@ -22,7 +28,8 @@ public class JwtServiceTest {
 
     @BeforeEach
     void setUp() throws Exception {
-        jwtService = new JwtService();
+        registry = new SimpleMeterRegistry();
+        jwtService = new JwtService(registry);
         // Set private fields via reflection (simulates @Value injection)
         setField(jwtService, "secret", "dGVzdGluZy1qd3Qtc2VjcmV0LXRlc3QxMjM0NTY3ODkwMTIzNDU2"); // base64
         setField(jwtService, "expMs", 3600_000L); // 1h
@@ -45,4 +52,38 @@ public class JwtServiceTest {
         assertTrue(jwtService.validateToken(token, principal));
         assertFalse(jwtService.isTokenExpired(token));
     }
+
+    @Test
+    void parseToken_returns_subject_roles_and_expiry() {
+        String token = jwtService.generateToken("user@example.com", "ROLES_USER");
+
+        JwtClaims claims = jwtService.parseToken(token);
+        assertEquals("user@example.com", claims.getSubject());
+        assertEquals("ROLES_USER", claims.getRoles());
+        assertNotNull(claims.getIssuedAt());
+        assertFalse(claims.isExpired());
+
+        UserDetails other = User.withUsername("other@example.com").password("x").roles("USER").build();
+        assertFalse(jwtService.validateToken(claims, other));
+    }
+
+    @Test
+    void parseToken_exposes_user_id_claim() {
+        String token = jwtService.generateToken("user@example.com", "ROLES_USER", "id1");
+        assertEquals("id1", jwtService.parseToken(token).getUserId());
+    }
+
+    @Test
+    void parseToken_rejects_tampered_token() {
+        String token = jwtService.generateToken("user@example.com", "ROLES_USER");
+        assertThrows(JwtException.class, () -> jwtService.parseToken(token + "x"));
+        assertEquals(1.0, registry.counter(Constants.METRIC_AUTH_FAILURES, Constants.TAG_CAUSE, "invalid_token").count());
+    }
+
+    @Test
+    void parse_and_sign_are_timed() {
+        jwtService.parseToken(jwtService.generateToken("user@example.com", "ROLES_USER"));
+        assertEquals(1, registry.get("jwt.duration").tag("operation", "sign").timer().count());
+        assertEquals(1, registry.get("jwt.duration").tag("operation", "parse").timer().count());
+    }
 }
@@ -0,0 +1,185 @@
+package com.mongodb.kitchensink.service;
+
+import com.mongodb.kitchensink.config.CacheConfig;
+import com.mongodb.kitchensink.config.ReactiveUserInfoUserDetailsService;
+import com.mongodb.kitchensink.dto.UserRequest;
+import com.mongodb.kitchensink.dto.UserUpdateRequest;
+import com.mongodb.kitchensink.exception.UserCreationException;
+import com.mongodb.kitchensink.exception.UserNotFoundException;
+import com.mongodb.kitchensink.exception.UserUpdateConflictException;
+import com.mongodb.kitchensink.model.UserInfo;
+import com.mongodb.kitchensink.repository.ReactiveUserInfoRepository;
+import com.mongodb.kitchensink.repository.UserViewCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveUserInfoServiceTest {
+
+    @Mock
+    PasswordEncoder passwordEncoder;
+    @Mock
+    ReactiveUserInfoRepository userRepo;
+    @Mock
+    ReactiveUserInfoUserDetailsService userDetailsService;
+    @Spy
+    UserViewCache viewCache = new UserViewCache(new CaffeineCacheManager(CacheConfig.USER_VIEWS, CacheConfig.USER_EMAIL_IDS));
+    @InjectMocks
+    ReactiveUserInfoService service;
+
+    private UserInfo sample;
+
+    @BeforeEach
+    void init() {
+        sample = UserInfo.builder().id("id1").email("john@example.com").username("John").phone("9876543210").roles("ROLES_USER").password("enc").version(3L).build();
+    }
+
+    @Test
+    void createUser_saves_normalized_user_with_encoded_password() {
+        when(userRepo.existsByEmail("john@example.com")).thenReturn(Mono.just(false));
+        when(passwordEncoder.encode("Plain@123")).thenReturn("ENCODED");
+        when(userRepo.save(any())).thenAnswer(a -> Mono.just(a.getArgument(0)));
+        UserRequest req = new UserRequest();
+        req.setUsername(" John  ");
+        req.setEmail("  JOHN@EXAMPLE.COM ");
+        req.setPhone("(987)-654-3210");
+        req.setPassword("Plain@123");
+
+        StepVerifier.create(service.createUser(req)).verifyComplete();
+
+        ArgumentCaptor<UserInfo> saved = ArgumentCaptor.forClass(UserInfo.class);
+        verify(userRepo).save(saved.capture());
+        assertEquals("john@example.com", saved.getValue().getEmail());
+        assertEquals("ENCODED", saved.getValue().getPassword());
+    }
+
+    @Test
+    void createUser_maps_duplicate_key_to_creation_error() {
+        when(userRepo.existsByEmail("john@example.com")).thenReturn(Mono.just(false));
+        when(passwordEncoder.encode(any())).thenReturn("ENCODED");
+        when(userRepo.save(any())).thenReturn(Mono.error(new DuplicateKeyException("dup")));
+        UserRequest req = new UserRequest();
+        req.setUsername("John");
+        req.setEmail("john@example.com");
+        req.setPhone("9876543210");
+        req.setPassword("Plain@123");
+
+        StepVerifier.create(service.createUser(req)).expectError(UserCreationException.class).verify();
+    }
+
+    @Test
+    void createUser_rejects_known_email_before_hashing() {
+        when(userRepo.existsByEmail("john@example.com")).thenReturn(Mono.just(true));
+        UserRequest req = new UserRequest();
+        req.setEmail(" John@Example.com ");
+        req.setPassword("Plain@123");
+
+        StepVerifier.create(service.createUser(req)).expectError(UserCreationException.class).verify();
+        verifyNoInteractions(passwordEncoder);
+        verify(userRepo, never()).save(any());
+    }
+
+    @Test
+    void getById_reads_once_then_serves_from_view_cache() {
+        when(userRepo.findViewById("id1")).thenReturn(Mono.just(sample));
+
+        StepVerifier.create(service.getById("id1")).assertNext(u -> assertEquals("john@example.com", u.getEmail())).verifyComplete();
+        StepVerifier.create(service.getById("id1")).expectNextCount(1).verifyComplete();
+
+        verify(userRepo, times(1)).findViewById("id1");
+    }
+
+    @Test
+    void getById_missing_user_is_not_found() {
+        when(userRepo.findViewById("nope")).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.getById("nope")).expectError(UserNotFoundException.class).verify();
+    }
+
+    @Test
+    void update_without_password_skips_hashing_and_evicts_caches() {
+        when(userRepo.updateView(eq("id1"), eq("john@example.com"), eq(3L), any(Update.class))).thenReturn(Mono.just(sample));
+        UserUpdateRequest req = new UserUpdateRequest();
+        req.setName("Johnny");
+        req.setVersion(3L);
+
+        StepVerifier.create(service.update("id1", "john@example.com", req)).expectNextCount(1).verifyComplete();
+
+        verifyNoInteractions(passwordEncoder);
+        verify(viewCache).evict("id1");
+        verify(userDetailsService).evict("john@example.com");
+    }
+
+    @Test
+    void update_on_stale_version_is_a_conflict() {
+        when(userRepo.updateView(any(), any(), any(), any())).thenReturn(Mono.empty());
+        when(userRepo.findAccessById("id1")).thenReturn(Mono.just(sample));
+        UserUpdateRequest req = new UserUpdateRequest();
+        req.setVersion(2L);
+
+        StepVerifier.create(service.update("id1", "john@example.com", req)).expectError(UserUpdateConflictException.class).verify();
+    }
+
+    @Test
+    void update_missing_user_is_not_found() {
+        when(userRepo.updateView(any(), any(), any(), any())).thenReturn(Mono.empty());
+        when(userRepo.findAccessById("nope")).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.update("nope", null, new UserUpdateRequest())).expectError(UserNotFoundException.class).verify();
+    }
+
+    @Test
+    void delete_of_admin_is_denied() {
+        UserInfo admin = UserInfo.builder().id("a1").email("admin@example.com").roles("ROLES_ADMIN").build();
+        when(userRepo.deleteNonAdmin("a1", null)).thenReturn(Mono.empty());
+        when(userRepo.findAccessById("a1")).thenReturn(Mono.just(admin));
+
+        StepVerifier.create(service.delete("a1", null)).expectError(AccessDeniedException.class).verify();
+        verify(viewCache, never()).evict(any());
+    }
+
+    @Test
+    void stream_maps_every_row_in_order() {
+        UserInfo second = UserInfo.builder().id("id2").email("jane@example.com").username("Jane").build();
+        when(userRepo.stream(any(), eq(Sort.by("email")))).thenReturn(Flux.just(sample, second));
+
+        StepVerifier.create(service.stream(null, null, null, null, Sort.by("email")))
+                .assertNext(u -> assertEquals("id1", u.getId()))
+                .assertNext(u -> assertEquals("id2", u.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void scroll_reads_one_extra_row_to_detect_next_page() {
+        UserInfo second = UserInfo.builder().id("id2").email("jane@example.com").createdAt(Instant.EPOCH).build();
+        sample.setCreatedAt(Instant.EPOCH);
+        when(userRepo.scroll(any(), isNull(), eq(2))).thenReturn(Flux.just(sample, second));
+
+        StepVerifier.create(service.scroll(null, null, null, null, "", 1))
+                .assertNext(slice -> {
+                    assertEquals(1, slice.getContent().size());
+                    assertNotNull(slice.getNextCursor());
+                })
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,119 @@
+package com.mongodb.kitchensink.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.kitchensink.exception.UserCreationException;
+import com.mongodb.kitchensink.model.UserInfo;
+import com.mongodb.kitchensink.repository.UserCounter;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RegistrationBatcherTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final UserCounter userCounter = mock(UserCounter.class);
+    private RegistrationBatcher batcher;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        if (batcher != null) {
+            batcher.destroy();
+        }
+    }
+
+    private static UserInfo user(String email) {
+        return UserInfo.builder().email(email).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coalesces_concurrent_registrations_into_one_bulk_insert() throws Exception {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserInfo.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenAnswer(a -> {
+            batchSizes.add(((List<UserInfo>) a.getArgument(0)).size());
+            return bulk;
+        });
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(4, 0, 0, 0, List.of(), List.of()));
+        batcher = new RegistrationBatcher(mongoTemplate, userCounter, true, 4, Duration.ofSeconds(5), 100);
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String email = "u" + i + "@example.com";
+                calls.add(callers.submit(() -> batcher.insert(user(email))));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        // max-batch was reached long before max-delay, so all four went out together
+        assertEquals(List.of(4), batchSizes);
+        verify(userCounter).invalidate();
+    }
+
+    @Test
+    void duplicate_key_fails_only_that_caller() {
+        BulkWriteResult partial = BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of());
+        BulkWriteError dup = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1);
+        MongoBulkWriteException driverEx = new MongoBulkWriteException(partial, List.of(dup), null, new ServerAddress(), Set.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserInfo.class)).thenReturn(bulk);
+        when(bulk.execute()).thenThrow(new BulkOperationException("bulk failed", driverEx));
+        batcher = new RegistrationBatcher(mongoTemplate, userCounter, false, 4, Duration.ofMillis(5), 100);
+
+        RegistrationBatcher.Pending ok = new RegistrationBatcher.Pending(user("a@example.com"), new CompletableFuture<>());
+        RegistrationBatcher.Pending taken = new RegistrationBatcher.Pending(user("b@example.com"), new CompletableFuture<>());
+        batcher.flush(List.of(ok, taken));
+
+        assertNull(ok.result().join());
+        assertNotNull(ok.user().getId());
+        Exception ex = assertThrows(Exception.class, () -> taken.result().join());
+        assertInstanceOf(UserCreationException.class, ex.getCause());
+        assertEquals("Email already in use!", ex.getCause().getMessage());
+    }
+
+    @Test
+    void write_failure_fails_whole_batch() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserInfo.class)).thenReturn(bulk);
+        when(bulk.execute()).thenThrow(new IllegalStateException("down"));
+        batcher = new RegistrationBatcher(mongoTemplate, userCounter, false, 4, Duration.ofMillis(5), 100);
+
+        RegistrationBatcher.Pending p = new RegistrationBatcher.Pending(user("a@example.com"), new CompletableFuture<>());
+        batcher.flush(List.of(p));
+
+        assertTrue(p.result().isCompletedExceptionally());
+        verify(userCounter).invalidate();
+    }
+
+    @Test
+    void insert_requires_group_commit_to_be_enabled() {
+        batcher = new RegistrationBatcher(mongoTemplate, userCounter, false, 4, Duration.ofMillis(5), 100);
+        assertFalse(batcher.isEnabled());
+        assertThrows(IllegalStateException.class, () -> batcher.insert(user("a@example.com")));
+    }
+}
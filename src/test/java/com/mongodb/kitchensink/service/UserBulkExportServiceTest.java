@@ -0,0 +1,213 @@
+package com.mongodb.kitchensink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mongodb.kitchensink.dto.ExportManifest;
+import com.mongodb.kitchensink.exception.InvalidFieldException;
+import com.mongodb.kitchensink.model.UserInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserBulkExportServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private UserBulkExportService service;
+
+    private UserBulkExportService service() {
+        service = new UserBulkExportService(mongoTemplate, objectMapper, registry, dir.toString(), 2, 2, 100, false);
+        return service;
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) service.destroy();
+    }
+
+    private static UserInfo user(String id, String name) {
+        return UserInfo.builder().id(id).username(name).email(name + "@x.com").phone("9876543210").build();
+    }
+
+    private ExportManifest awaitFinished(String jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            ExportManifest m = service.status(jobId);
+            if (m.getStatus() != ExportManifest.Status.RUNNING) return m;
+            Thread.sleep(20);
+        }
+        fail("export did not finish");
+        return null;
+    }
+
+    private void sampledIds(String... ids) {
+        List<Document> docs = Stream.of(ids).map(id -> new Document("_id", new ObjectId(id))).toList();
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(UserInfo.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(docs, new Document()));
+    }
+
+    @Test
+    void writes_chunks_and_manifest() throws Exception {
+        sampledIds();
+        when(mongoTemplate.stream(any(Query.class), eq(UserInfo.class))).thenReturn(Stream.of(
+                user(new ObjectId().toHexString(), "a"), user(new ObjectId().toHexString(), "b"), user(new ObjectId().toHexString(), "c")));
+
+        ExportManifest started = service().start(UserExportService.Format.NDJSON, null);
+        ExportManifest done = awaitFinished(started.getJobId());
+
+        assertEquals(ExportManifest.Status.COMPLETED, done.getStatus());
+        assertEquals(3, done.getRows());
+        ExportManifest.Partition p = done.getPartitions().get(0);
+        assertEquals(List.of("part-000-00000.ndjson", "part-000-00001.ndjson"), p.getChunks());
+        Path jobDir = dir.resolve(started.getJobId());
+        assertEquals(2, Files.readAllLines(jobDir.resolve("part-000-00000.ndjson")).size());
+        assertTrue(Files.exists(jobDir.resolve(UserBulkExportService.MANIFEST)));
+        assertEquals(3.0, registry.get("user.export.rows").counter().count());
+    }
+
+    @Test
+    void splits_collection_into_id_ranges_from_one_sample() {
+        String mid = new ObjectId().toHexString();
+        sampledIds(new ObjectId().toHexString(), new ObjectId().toHexString(), mid, new ObjectId().toHexString());
+
+        List<ExportManifest.Partition> parts = service().partition(2);
+
+        assertEquals(2, parts.size());
+        assertNull(parts.get(0).getFromId());
+        assertEquals(mid, parts.get(0).getToId());
+        assertEquals(mid, parts.get(1).getFromId());
+        assertNull(parts.get(1).getToId());
+        ArgumentCaptor<Aggregation> cap = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(cap.capture(), eq(UserInfo.class), eq(Document.class));
+        assertEquals(200L, ((Document) cap.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT).get(0).get("$sample")).get("size"));
+        verify(mongoTemplate, never()).findOne(any(Query.class), eq(UserInfo.class));
+    }
+
+    @Test
+    void start_returns_before_the_collection_is_split() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(UserInfo.class), eq(Document.class))).thenAnswer(a -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new AggregationResults<>(List.of(new Document("_id", new ObjectId())), new Document());
+        });
+        when(mongoTemplate.stream(any(Query.class), eq(UserInfo.class))).thenAnswer(a -> Stream.empty());
+
+        ExportManifest started = service().start(UserExportService.Format.NDJSON, 2);
+
+        assertEquals(ExportManifest.Status.RUNNING, started.getStatus());
+        assertTrue(started.getPartitions().isEmpty());
+        release.countDown();
+        ExportManifest done = awaitFinished(started.getJobId());
+        assertEquals(ExportManifest.Status.COMPLETED, done.getStatus());
+        assertEquals(2, done.getPartitions().size());
+    }
+
+    @Test
+    void resume_splits_a_job_stopped_before_its_ranges_were_recorded() throws Exception {
+        ExportManifest manifest = new ExportManifest();
+        manifest.setJobId("users-unsplit");
+        manifest.setFormat("NDJSON");
+        manifest.setChunkRows(2);
+        manifest.setStatus(ExportManifest.Status.RUNNING);
+        Path jobDir = Files.createDirectories(dir.resolve("users-unsplit"));
+        objectMapper.writeValue(jobDir.resolve(UserBulkExportService.MANIFEST).toFile(), manifest);
+        sampledIds();
+        when(mongoTemplate.stream(any(Query.class), eq(UserInfo.class))).thenReturn(Stream.of(user(new ObjectId().toHexString(), "a")));
+
+        service().resume("users-unsplit");
+        ExportManifest done = awaitFinished("users-unsplit");
+
+        assertEquals(ExportManifest.Status.COMPLETED, done.getStatus());
+        assertEquals(1, done.getPartitions().size());
+        assertEquals(1, done.getRows());
+    }
+
+    @Test
+    void resume_continues_after_last_committed_id_and_drops_partial_chunks() throws Exception {
+        String last = new ObjectId().toHexString();
+        String upper = new ObjectId().toHexString();
+        ExportManifest manifest = new ExportManifest();
+        manifest.setJobId("users-test");
+        manifest.setFormat("CSV");
+        manifest.setChunkRows(2);
+        manifest.setStatus(ExportManifest.Status.FAILED);
+        ExportManifest.Partition p = new ExportManifest.Partition();
+        p.setToId(upper);
+        p.setLastId(last);
+        p.setRows(2);
+        p.getChunks().add("part-000-00000.csv");
+        manifest.getPartitions().add(p);
+        Path jobDir = Files.createDirectories(dir.resolve("users-test"));
+        objectMapper.writeValue(jobDir.resolve(UserBulkExportService.MANIFEST).toFile(), manifest);
+        Files.writeString(jobDir.resolve("part-000-00001.csv.tmp"), "partial");
+        when(mongoTemplate.stream(any(Query.class), eq(UserInfo.class))).thenReturn(Stream.of(user(new ObjectId().toHexString(), "z")));
+
+        service().resume("users-test");
+        ExportManifest done = awaitFinished("users-test");
+
+        assertEquals(ExportManifest.Status.COMPLETED, done.getStatus());
+        assertEquals(3, done.getRows());
+        assertFalse(Files.exists(jobDir.resolve("part-000-00001.csv.tmp")));
+        assertEquals("id,name,email,phone", Files.readAllLines(jobDir.resolve("part-000-00001.csv")).get(0));
+        ArgumentCaptor<Query> cap = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(cap.capture(), eq(UserInfo.class));
+        Document id = (Document) cap.getValue().getQueryObject().get("id");
+        assertEquals(new ObjectId(last), id.get("$gt"));
+        assertEquals(new ObjectId(upper), id.get("$lt"));
+    }
+
+    @Test
+    void resume_rejects_a_job_that_is_already_running() throws Exception {
+        ExportManifest manifest = new ExportManifest();
+        manifest.setJobId("users-busy");
+        manifest.setFormat("NDJSON");
+        manifest.setChunkRows(2);
+        manifest.setStatus(ExportManifest.Status.FAILED);
+        manifest.getPartitions().add(new ExportManifest.Partition());
+        Path jobDir = Files.createDirectories(dir.resolve("users-busy"));
+        objectMapper.writeValue(jobDir.resolve(UserBulkExportService.MANIFEST).toFile(), manifest);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mongoTemplate.stream(any(Query.class), eq(UserInfo.class))).thenAnswer(a -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Stream.empty();
+        });
+
+        UserBulkExportService s = service();
+        s.resume("users-busy");
+        assertThrows(InvalidFieldException.class, () -> s.resume("users-busy"));
+        release.countDown();
+
+        assertEquals(ExportManifest.Status.COMPLETED, awaitFinished("users-busy").getStatus());
+        verify(mongoTemplate, times(1)).stream(any(Query.class), eq(UserInfo.class));
+    }
+
+    @Test
+    void rejects_json_format_and_unsafe_job_ids() {
+        UserBulkExportService s = service();
+        assertThrows(InvalidFieldException.class, () -> s.start(UserExportService.Format.JSON, 2));
+        assertThrows(InvalidFieldException.class, () -> s.status("../etc"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.mongodb.kitchensink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.kitchensink.model.UserInfo;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserExportServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final UserExportService service = new UserExportService(mongoTemplate, new ObjectMapper(), 1);
+
+    private final UserInfo a = UserInfo.builder().id("1").username("Ann").email("ann@x.com").phone("9876543210").build();
+    private final UserInfo b = UserInfo.builder().id("2").username("Bo, Jr").email("bo@x.com").build();
+
+    private String export(UserExportService.Format format) throws IOException {
+        when(mongoTemplate.stream(any(Query.class), eq(UserInfo.class))).thenReturn(Stream.of(a, b));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void json_is_a_streamed_array() throws IOException {
+        String body = export(UserExportService.Format.JSON);
+        assertTrue(body.startsWith("[{\"id\":\"1\""));
+        assertTrue(body.endsWith("}]"));
+    }
+
+    @Test
+    void ndjson_writes_one_object_per_line() throws IOException {
+        String[] lines = export(UserExportService.Format.NDJSON).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].contains("\"email\":\"bo@x.com\""));
+    }
+
+    @Test
+    void csv_quotes_values_with_separators() throws IOException {
+        String body = export(UserExportService.Format.CSV);
+        assertEquals("id,name,email,phone\r\n1,Ann,ann@x.com,9876543210\r\n2,\"Bo, Jr\",bo@x.com,\r\n", body);
+    }
+
+    @Test
+    void query_projects_fields_and_uses_batch_size() throws IOException {
+        export(UserExportService.Format.JSON);
+        ArgumentCaptor<Query> cap = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(cap.capture(), eq(UserInfo.class));
+        assertFalse(cap.getValue().getFieldsObject().containsKey("password"));
+        assertEquals(1, cap.getValue().getMeta().getCursorBatchSize());
+    }
+
+    @Test
+    void client_disconnect_closes_cursor() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(mongoTemplate.stream(any(Query.class), eq(UserInfo.class)))
+                .thenReturn(Stream.of(a, b).onClose(() -> closed.set(true)));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> service.export(UserExportService.Format.NDJSON, broken));
+        assertTrue(closed.get());
+    }
+}
@@ -0,0 +1,193 @@
+package com.mongodb.kitchensink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.kitchensink.dto.ImportResult;
+import com.mongodb.kitchensink.exception.InvalidFieldException;
+import com.mongodb.kitchensink.exception.PasswordHashingUnavailableException;
+import com.mongodb.kitchensink.model.UserInfo;
+import com.mongodb.kitchensink.repository.UserCounter;
+import jakarta.validation.Validation;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final UserCounter userCounter = mock(UserCounter.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final UserImportService service = new UserImportService(mongoTemplate, userCounter, passwordEncoder, new ObjectMapper(),
+            Validation.buildDefaultValidatorFactory().getValidator(), 2, 10, 2, false);
+
+    private static final String ANN = "{\"username\":\"Ann Lee\",\"email\":\"Ann@Example.com\",\"phone\":\"9876543210\",\"password\":\"P@ssw0rd1\"}";
+    private static final String BOB = "{\"username\":\"Bob Ray\",\"email\":\"bob@example.com\",\"phone\":\"9876543211\",\"password\":\"P@ssw0rd1\"}";
+    private static final String CAT = "{\"username\":\"Cat Doe\",\"email\":\"cat@example.com\",\"phone\":\"9876543212\",\"password\":\"P@ssw0rd1\"}";
+
+    @AfterEach
+    void shutdown() {
+        service.destroy();
+    }
+
+    private ImportResult run(UserExportService.Format format, String body) throws IOException {
+        when(passwordEncoder.encode(anyString())).thenReturn("hash");
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserInfo.class)).thenReturn(bulk);
+        return service.importUsers(format, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void inserts_in_unordered_batches_with_normalized_values() throws IOException {
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()),
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()));
+
+        ImportResult result = run(UserExportService.Format.NDJSON, ANN + "\n" + BOB + "\n\n" + CAT + "\n");
+
+        assertEquals(3, result.getTotal());
+        assertEquals(3, result.getInserted());
+        assertTrue(result.getErrors().isEmpty());
+        ArgumentCaptor<List<UserInfo>> cap = ArgumentCaptor.forClass(List.class);
+        verify(bulk, times(2)).insert(cap.capture());
+        UserInfo ann = cap.getAllValues().get(0).get(0);
+        assertEquals("ann@example.com", ann.getEmail());
+        assertEquals("hash", ann.getPassword());
+        assertEquals("ROLES_USER", ann.getRoles());
+        verify(mongoTemplate, never()).exists(any(), eq(UserInfo.class));
+        verify(userCounter, times(2)).invalidate();
+    }
+
+    @Test
+    void virtual_thread_mode_waits_for_hashing_on_virtual_threads() throws IOException {
+        UserImportService virtual = new UserImportService(mongoTemplate, userCounter, passwordEncoder, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, 10, 2, true);
+        List<Boolean> onVirtual = new CopyOnWriteArrayList<>();
+        when(passwordEncoder.encode(anyString())).thenAnswer(a -> {
+            onVirtual.add(Thread.currentThread().isVirtual());
+            return "hash";
+        });
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserInfo.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()));
+        try {
+            virtual.importUsers(UserExportService.Format.NDJSON, new ByteArrayInputStream((ANN + "\n" + BOB).getBytes(StandardCharsets.UTF_8)));
+        } finally {
+            virtual.destroy();
+        }
+
+        assertEquals(List.of(true, true), onVirtual);
+    }
+
+    @Test
+    void duplicate_key_errors_are_reported_per_row() throws IOException {
+        BulkWriteResult partial = BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of());
+        BulkWriteError dup = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1);
+        MongoBulkWriteException driverEx = new MongoBulkWriteException(partial, List.of(dup), null, new ServerAddress(), Set.of());
+        when(bulk.execute()).thenThrow(new BulkOperationException("bulk failed", driverEx));
+
+        ImportResult result = run(UserExportService.Format.NDJSON, ANN + "\n" + BOB + "\n");
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getDuplicates());
+        ImportResult.Row row = result.getErrors().get(0);
+        assertEquals(2, row.getLine());
+        assertEquals("bob@example.com", row.getEmail());
+        assertEquals(ImportResult.Status.DUPLICATE, row.getStatus());
+    }
+
+    @Test
+    void csv_rows_are_validated_with_registration_rules() throws IOException {
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()));
+        String csv = "name,email,phone,password\r\n"
+                + "\"Lee, Ann\",ann@example.com,9876543210,P@ssw0rd1\r\n"
+                + "Ann Lee,ann@example.com,9876543210,P@ssw0rd1\r\n"
+                + "\"broken\r\n";
+
+        ImportResult result = run(UserExportService.Format.CSV, csv);
+
+        assertEquals(3, result.getTotal());
+        assertEquals(1, result.getInserted());
+        assertEquals(2, result.getInvalid());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("username"));
+        assertEquals(4, result.getErrors().get(1).getLine());
+    }
+
+    @Test
+    void enforces_row_limit_and_format() {
+        UserImportService small = new UserImportService(mongoTemplate, userCounter, passwordEncoder, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 5, 3, 2, false);
+        try {
+            String many = ANN + "\n" + BOB + "\n" + CAT + "\n" + ANN + "\n";
+            assertThrows(InvalidFieldException.class, () -> small.importUsers(UserExportService.Format.NDJSON,
+                    new ByteArrayInputStream(many.getBytes(StandardCharsets.UTF_8))));
+        } finally {
+            small.destroy();
+        }
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(UserInfo.class));
+        assertThrows(InvalidFieldException.class, () -> run(UserExportService.Format.JSON, ANN));
+    }
+
+    @Test
+    void row_limit_after_a_committed_batch_returns_what_was_inserted() throws IOException {
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()));
+        String many = (ANN + "\n").repeat(11);
+
+        ImportResult result = run(UserExportService.Format.NDJSON, many);
+
+        assertTrue(result.isAborted());
+        assertEquals(10, result.getTotal());
+        assertEquals(10, result.getInserted());
+        assertEquals(11, result.getStoppedAtLine());
+        verify(bulk, times(5)).execute();
+    }
+
+    @Test
+    void hashing_failure_after_a_committed_batch_stops_with_per_row_outcome() throws IOException {
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserInfo.class)).thenReturn(bulk);
+        when(passwordEncoder.encode(anyString())).thenReturn("hash", "hash")
+                .thenThrow(new PasswordHashingUnavailableException("Password hashing is busy", 1));
+
+        ImportResult result = service.importUsers(UserExportService.Format.NDJSON,
+                new ByteArrayInputStream((ANN + "\n" + BOB + "\n" + CAT + "\n" + ANN + "\n" + BOB + "\n").getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(result.isAborted());
+        assertEquals(2, result.getInserted());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(3, 4), result.getErrors().stream().map(ImportResult.Row::getLine).toList());
+        assertEquals(5, result.getStoppedAtLine());
+        verify(bulk, times(1)).execute();
+    }
+
+    @Test
+    void hashing_failure_before_anything_is_written_fails_the_request() {
+        when(passwordEncoder.encode(anyString())).thenThrow(new PasswordHashingUnavailableException("Password hashing is busy", 1));
+
+        assertThrows(PasswordHashingUnavailableException.class, () -> service.importUsers(UserExportService.Format.NDJSON,
+                new ByteArrayInputStream((ANN + "\n" + BOB + "\n").getBytes(StandardCharsets.UTF_8))));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(UserInfo.class));
+    }
+
+    @Test
+    void parses_quoted_csv_fields() {
+        assertEquals(List.of("a", "b,c", "say \"hi\"", ""), UserImportService.parseCsvLine("a,\"b,c\",\"say \"\"hi\"\"\","));
+    }
+}
@@ -1,24 +1,41 @@
 package com.mongodb.kitchensink.service;
 
+import com.mongodb.kitchensink.config.CacheConfig;
+import com.mongodb.kitchensink.config.UserInfoUserDetailsService;
+import com.mongodb.kitchensink.dto.CountedPage;
+import com.mongodb.kitchensink.dto.KeysetCursor;
 import com.mongodb.kitchensink.dto.UserRequest;
 import com.mongodb.kitchensink.dto.UserResponse;
+import com.mongodb.kitchensink.dto.UserSearchCriteria;
+import com.mongodb.kitchensink.dto.UserSlice;
 import com.mongodb.kitchensink.dto.UserUpdateRequest;
+import com.mongodb.kitchensink.exception.InvalidFieldException;
+import com.mongodb.kitchensink.exception.UserCreationException;
 import com.mongodb.kitchensink.exception.UserDeletionException;
 import com.mongodb.kitchensink.exception.UserNotFoundException;
+import com.mongodb.kitchensink.exception.UserUpdateConflictException;
 import com.mongodb.kitchensink.model.UserInfo;
 import com.mongodb.kitchensink.repository.UserInfoRepository;
+import com.mongodb.kitchensink.repository.UserViewCache;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +49,12 @@ class UserInfoServiceImplTest {
     PasswordEncoder passwordEncoder;
     @Mock
     UserInfoRepository userRepo;
+    @Mock
+    UserInfoUserDetailsService userDetailsService;
+    @Mock
+    RegistrationBatcher registrationBatcher;
+    @Spy
+    UserViewCache viewCache = new UserViewCache(new CaffeineCacheManager(CacheConfig.USER_VIEWS, CacheConfig.USER_EMAIL_IDS));
     @InjectMocks
     UserInfoServiceImpl service;
 
@@ -70,101 +93,297 @@ class UserInfoServiceImplTest {
     }
 
     @Test
-    void getAllUsers_maps_entities_to_dto() {
-        when(userRepo.findAll()).thenReturn(List.of(sample, UserInfo.builder().id("id2").email("a@b.com").username("A").phone("111").build()));
-        List<UserResponse> out = service.getAllUsers();
-        assertEquals(2, out.size());
-        assertEquals("id1", out.get(0).getId());
-        assertEquals("A", out.get(1).getName());
+    void createUser_maps_duplicate_key_to_conflict() {
+        when(passwordEncoder.encode(any())).thenReturn("ENCODED");
+        when(userRepo.save(any())).thenThrow(new DuplicateKeyException("E11000"));
+        UserRequest req = new UserRequest();
+        req.setEmail("john@example.com");
+
+        UserCreationException ex = assertThrows(UserCreationException.class, () -> service.createUser(req));
+        assertEquals("Email already in use!", ex.getMessage());
+    }
+
+    @Test
+    void createUser_rejects_known_email_before_hashing() {
+        when(userRepo.existsByEmail("john@example.com")).thenReturn(true);
+        UserRequest req = new UserRequest();
+        req.setEmail(" John@Example.com ");
+        req.setPassword("Plain@123");
+
+        UserCreationException ex = assertThrows(UserCreationException.class, () -> service.createUser(req));
+        assertEquals("Email already in use!", ex.getMessage());
+        verifyNoInteractions(passwordEncoder);
+        verify(userRepo, never()).save(any());
+    }
+
+    @Test
+    void createUser_uses_group_commit_when_enabled() {
+        when(passwordEncoder.encode(any())).thenReturn("ENCODED");
+        when(registrationBatcher.isEnabled()).thenReturn(true);
+        UserRequest req = new UserRequest();
+        req.setEmail("John@Example.com");
+
+        service.createUser(req);
+
+        ArgumentCaptor<UserInfo> cap = ArgumentCaptor.forClass(UserInfo.class);
+        verify(registrationBatcher).insert(cap.capture());
+        assertEquals("john@example.com", cap.getValue().getEmail());
+        verify(userRepo, never()).save(any());
     }
 
     @Test
     void getAll_returns_page_of_responses() {
-        Page<UserInfo> page = new PageImpl<>(List.of(sample));
-        when(userRepo.findAll(PageRequest.of(0, 5))).thenReturn(page);
+        CountedPage<UserInfo> page = new CountedPage<>(List.of(sample), PageRequest.of(0, 5), 40, false);
+        when(userRepo.search(any(UserSearchCriteria.class), eq(PageRequest.of(0, 5)))).thenReturn(page);
         Page<UserResponse> out = service.getAll(PageRequest.of(0, 5));
-        assertEquals(1, out.getSize());
+        assertEquals(5, out.getSize());
         assertEquals("id1", out.getContent().get(0).getId());
+        // the approximate-total flag survives mapping to responses
+        assertFalse(((CountedPage<UserResponse>) out).isTotalExact());
+        assertEquals(40, out.getTotalElements());
     }
 
     @Test
     void getById_present() {
-        when(userRepo.findById("id1")).thenReturn(Optional.of(sample));
+        when(userRepo.findViewById("id1")).thenReturn(Optional.of(sample));
         UserResponse res = service.getById("id1");
         assertEquals("john@example.com", res.getEmail());
     }
 
     @Test
     void getById_absent_throws() {
-        when(userRepo.findById("missing")).thenReturn(Optional.empty());
+        when(userRepo.findViewById("missing")).thenReturn(Optional.empty());
         assertThrows(UserNotFoundException.class, () -> service.getById("missing"));
     }
 
     @Test
     void getByEmail_present_and_absent() {
-        when(userRepo.findByEmail("john@example.com")).thenReturn(Optional.of(sample));
+        when(userRepo.findViewByEmail("john@example.com")).thenReturn(Optional.of(sample));
         UserResponse ok = service.getByEmail("john@example.com");
         assertEquals("John", ok.getName());
 
-        when(userRepo.findByEmail("no@x.com")).thenReturn(Optional.empty());
+        when(userRepo.findViewByEmail("no@x.com")).thenReturn(Optional.empty());
         assertThrows(UserNotFoundException.class, () -> service.getByEmail("no@x.com"));
     }
 
     @Test
     void getByEmailAndPhone_present_and_absent() {
-        when(userRepo.findByEmailAndPhone("john@example.com", "9876543210")).thenReturn(Optional.of(sample));
+        when(userRepo.findViewByEmailAndPhone("john@example.com", "9876543210")).thenReturn(Optional.of(sample));
         UserResponse ok = service.getByEmailAndPhone("  JOHN@example.com ", "(987) 654-3210");
         assertEquals("id1", ok.getId());
 
-        when(userRepo.findByEmailAndPhone("no@x.com", "123")).thenReturn(Optional.empty());
+        when(userRepo.findViewByEmailAndPhone("no@x.com", "123")).thenReturn(Optional.empty());
         assertThrows(UserNotFoundException.class, () -> service.getByEmailAndPhone("no@x.com", "123"));
     }
 
     @Test
-    void update_updates_fields_and_saves() {
-        when(userRepo.findById("id1")).thenReturn(Optional.of(sample));
-        when(userRepo.save(any())).thenAnswer(a -> a.getArgument(0));
+    void reads_are_served_from_cache_by_id_and_email_until_evicted() {
+        when(userRepo.findViewById("id1")).thenReturn(Optional.of(sample));
+
+        UserResponse first = service.getById("id1");
+        assertSame(first, service.getById("id1"));
+        assertSame(first, service.getByEmail(" John@Example.com"));
+        assertSame(first, service.getByEmailAndPhone("john@example.com", "9876543210"));
+        verify(userRepo, times(1)).findViewById("id1");
+        verify(userRepo, never()).findViewByEmail(any());
+        verify(userRepo, never()).findViewByEmailAndPhone(any(), any());
+
+        viewCache.evict("id1");
+        service.getById("id1");
+        verify(userRepo, times(2)).findViewById("id1");
+    }
+
+    @Test
+    void stamp_lookup_prefers_cache_then_validator_projection() {
+        Instant at = Instant.parse("2024-05-01T10:00:00Z");
+        when(userRepo.findStampById("id1")).thenReturn(Optional.of(UserInfo.builder().id("id1").email("john@example.com").version(2L).updatedAt(at).build()));
+
+        UserResponse stamp = service.getStampById("id1");
+        assertEquals(at, stamp.getUpdatedAt());
+        assertEquals(2L, stamp.getVersion());
+        verify(userRepo, never()).findViewById(any());
+        // Partial stamps are never cached as views
+        assertNull(viewCache.get("id1"));
+
+        when(userRepo.findViewById("id1")).thenReturn(Optional.of(sample));
+        UserResponse view = service.getById("id1");
+        assertSame(view, service.getStampById("id1"));
+        verify(userRepo, times(1)).findStampById("id1");
+    }
+
+    @Test
+    void load_racing_an_eviction_is_not_cached() {
+        when(userRepo.findViewById("id1")).thenAnswer(a -> {
+            viewCache.evict("id1");
+            return Optional.of(sample);
+        });
+
+        service.getById("id1");
+        assertNull(viewCache.get("id1"));
+    }
+
+    @Test
+    void update_and_delete_evict_cached_view() {
+        when(userRepo.findViewById("id1")).thenReturn(Optional.of(sample));
+        when(userRepo.updateView(eq("id1"), isNull(), isNull(), any(Update.class))).thenReturn(sample);
+        when(userRepo.deleteNonAdmin("id1", null)).thenReturn(sample);
+
+        service.getById("id1");
+        service.update("id1", new UserUpdateRequest());
+        assertNull(viewCache.get("id1"));
+
+        service.getById("id1");
+        service.delete("id1");
+        assertNull(viewCache.get("id1"));
+    }
+
+    @Test
+    void update_sets_only_changed_fields_in_one_call() {
+        UserInfo updated = UserInfo.builder().id("id1").email("john@example.com").username("New Name").phone("9998887777").version(4L).build();
+        when(userRepo.updateView(eq("id1"), eq("john@example.com"), eq(3L), any(Update.class))).thenReturn(updated);
         UserUpdateRequest req = new UserUpdateRequest();
         req.setEmail("New@Example.com");
         req.setPhone("999-888-7777");
-        req.setName("New Name");
-        UserResponse res = service.update("id1", req);
+        req.setName(" New Name ");
+        req.setVersion(3L);
+
+        UserResponse res = service.update("id1", "john@example.com", req);
+
         assertEquals("john@example.com", res.getEmail());
         assertEquals("9998887777", res.getPhone());
-        assertTrue(res.getName().startsWith("New"));
-        verify(userRepo).save(any());
+        assertEquals(4L, res.getVersion());
+        ArgumentCaptor<Update> cap = ArgumentCaptor.forClass(Update.class);
+        verify(userRepo).updateView(eq("id1"), eq("john@example.com"), eq(3L), cap.capture());
+        Document set = (Document) cap.getValue().getUpdateObject().get("$set");
+        assertEquals("New Name", set.get("username"));
+        assertEquals("new name", set.get("usernameLower"));
+        assertEquals("9998887777", set.get("phone"));
+        assertFalse(set.containsKey("email"));
+        assertFalse(set.containsKey("password"));
+        verify(userRepo, never()).findById(any());
+        verify(userRepo, never()).save(any());
+        verify(userDetailsService).evict("john@example.com");
     }
 
     @Test
-    void delete_when_present_deletes() {
-        when(userRepo.findById("id1")).thenReturn(Optional.of(sample));
-        service.delete("id1");
-        verify(userRepo).deleteById("id1");
+    void update_miss_is_classified_as_404_403_or_409() {
+        UserUpdateRequest req = new UserUpdateRequest();
+        req.setVersion(1L);
+        when(userRepo.updateView(any(), any(), any(), any(Update.class))).thenReturn(null);
+        when(userRepo.findAccessById("missing")).thenReturn(Optional.empty());
+        when(userRepo.findAccessById("id1")).thenReturn(Optional.of(sample));
+
+        assertThrows(UserNotFoundException.class, () -> service.update("missing", null, req));
+        assertThrows(AccessDeniedException.class, () -> service.update("id1", "other@example.com", req));
+        assertThrows(UserUpdateConflictException.class, () -> service.update("id1", "john@example.com", req));
+        verify(userDetailsService, never()).evict(any());
     }
 
     @Test
-    void delete_when_absent_throws() {
-        when(userRepo.findById("missing")).thenReturn(Optional.empty());
-        assertThrows(UserDeletionException.class, () -> service.delete("missing"));
+    void delete_when_present_deletes_without_lookup() {
+        when(userRepo.deleteNonAdmin("id1", "john@example.com")).thenReturn(sample);
+        service.delete("id1", "john@example.com");
+        verify(userRepo, never()).findAccessById(any());
+        verify(userDetailsService).evict("john@example.com");
     }
 
     @Test
-    void search_routes_to_correct_repo_calls() {
-        Page<UserInfo> page = new PageImpl<>(List.of(sample));
-        // both email & name
-        when(userRepo.findByEmailContainingIgnoreCaseAndUsernameContainingIgnoreCase(eq("john@example.com"), eq("John"), any())).thenReturn(page);
-        assertEquals(1, service.search("john@example.com", "John", null, null, PageRequest.of(0, 10)).getTotalElements());
+    void delete_miss_is_classified_as_404_or_403() {
+        UserInfo admin = UserInfo.builder().id("a1").email("root@example.com").roles("ROLES_ADMIN").build();
+        when(userRepo.findAccessById("missing")).thenReturn(Optional.empty());
+        when(userRepo.findAccessById("id1")).thenReturn(Optional.of(sample));
+        when(userRepo.findAccessById("a1")).thenReturn(Optional.of(admin));
 
-        // only email
-        when(userRepo.findByEmailContainingIgnoreCase(eq("john@example.com"), any())).thenReturn(page);
-        assertEquals(1, service.search("john@example.com", null, null, null, PageRequest.of(0, 10)).getTotalElements());
+        assertThrows(UserNotFoundException.class, () -> service.delete("missing"));
+        AccessDeniedException notOwner = assertThrows(AccessDeniedException.class, () -> service.delete("id1", "other@example.com"));
+        assertEquals("You are not allowed to delete another user's details", notOwner.getMessage());
+        AccessDeniedException adminTarget = assertThrows(AccessDeniedException.class, () -> service.delete("a1"));
+        assertEquals("Admin accounts cannot be deleted.", adminTarget.getMessage());
+        assertThrows(UserDeletionException.class, () -> service.delete("id1", "john@example.com"));
+        verify(userDetailsService, never()).evict(any());
+    }
+
+    @Test
+    void search_builds_normalized_prefix_criteria() {
+        CountedPage<UserInfo> page = new CountedPage<>(List.of(sample), PageRequest.of(0, 10), 1, true);
+        when(userRepo.search(any(UserSearchCriteria.class), any())).thenReturn(page);
 
-        // only name
-        when(userRepo.findByUsernameContainingIgnoreCase(eq("John"), any())).thenReturn(page);
-        assertEquals(1, service.search(null, "John", null, null, PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(1, service.search(" John@Example.com ", " JoHn ", null, null, PageRequest.of(0, 10)).getTotalElements());
+
+        ArgumentCaptor<UserSearchCriteria> cap = ArgumentCaptor.forClass(UserSearchCriteria.class);
+        verify(userRepo).search(cap.capture(), eq(PageRequest.of(0, 10)));
+        assertEquals("john@example.com", cap.getValue().getEmailPrefix());
+        assertEquals("john", cap.getValue().getNamePrefix());
+        assertNull(cap.getValue().getCreatedFrom());
+    }
 
-        // neither -> findAll(pageable)
-        when(userRepo.findAll(any(PageRequest.class))).thenReturn(page);
+    @Test
+    void search_without_text_filters_falls_back_to_listing() {
+        CountedPage<UserInfo> page = new CountedPage<>(List.of(sample), PageRequest.of(0, 10), 1, true);
+        when(userRepo.search(any(UserSearchCriteria.class), any())).thenReturn(page);
+
+        // neither -> unfiltered listing
         assertEquals(1, service.search(" ", " ", null, null, PageRequest.of(0, 10)).getTotalElements());
+        // dates only -> criteria search on createdAt
+        Instant from = Instant.parse("2024-01-01T00:00:00Z");
+        assertEquals(1, service.search(null, null, from, null, PageRequest.of(0, 10)).getTotalElements());
+
+        ArgumentCaptor<UserSearchCriteria> cap = ArgumentCaptor.forClass(UserSearchCriteria.class);
+        verify(userRepo, times(2)).search(cap.capture(), any());
+        assertTrue(cap.getAllValues().get(0).isEmpty());
+        assertEquals(from, cap.getAllValues().get(1).getCreatedFrom());
+        assertNull(cap.getAllValues().get(1).getEmailPrefix());
+    }
+
+    @Test
+    void raw_search_uses_the_same_criteria_as_search() {
+        CountedPage<RawBsonDocument> page = new CountedPage<>(List.of(), PageRequest.of(0, 10), 0, true);
+        when(userRepo.searchRaw(any(UserSearchCriteria.class), any())).thenReturn(page);
+
+        assertSame(page, service.searchRaw(" John@Example.com ", " ", null, null, PageRequest.of(0, 10)).page());
+
+        ArgumentCaptor<UserSearchCriteria> cap = ArgumentCaptor.forClass(UserSearchCriteria.class);
+        verify(userRepo).searchRaw(cap.capture(), eq(PageRequest.of(0, 10)));
+        assertEquals("john@example.com", cap.getValue().getEmailPrefix());
+        assertNull(cap.getValue().getNamePrefix());
+        verify(userRepo, never()).search(any(), any());
+    }
+
+    @Test
+    void scroll_fetches_one_extra_row_and_returns_cursor_of_last_item() {
+        Instant t = Instant.parse("2024-05-01T10:00:00Z");
+        UserInfo a = UserInfo.builder().id("65f000000000000000000002").email("a@x.com").createdAt(t).build();
+        UserInfo b = UserInfo.builder().id("65f000000000000000000001").email("b@x.com").createdAt(t).build();
+        when(userRepo.scroll(any(UserSearchCriteria.class), isNull(), eq(2))).thenReturn(List.of(a, b));
+
+        UserSlice slice = service.scroll(null, null, null, null, "", 1);
+
+        assertEquals(1, slice.getContent().size());
+        assertTrue(slice.isHasNext());
+        KeysetCursor next = KeysetCursor.decode(slice.getNextCursor());
+        assertEquals(t, next.getCreatedAt());
+        assertEquals(a.getId(), next.getId());
+    }
+
+    @Test
+    void scroll_last_page_has_no_cursor_and_passes_decoded_cursor_to_repo() {
+        String cursor = new KeysetCursor(Instant.parse("2024-05-01T10:00:00Z"), "65f000000000000000000002").encode();
+        when(userRepo.scroll(any(UserSearchCriteria.class), any(KeysetCursor.class), eq(11))).thenReturn(List.of(sample));
+
+        UserSlice slice = service.scroll(" A@X.com ", null, null, null, cursor, 10);
+
+        assertFalse(slice.isHasNext());
+        assertNull(slice.getNextCursor());
+        ArgumentCaptor<UserSearchCriteria> cap = ArgumentCaptor.forClass(UserSearchCriteria.class);
+        ArgumentCaptor<KeysetCursor> after = ArgumentCaptor.forClass(KeysetCursor.class);
+        verify(userRepo).scroll(cap.capture(), after.capture(), eq(11));
+        assertEquals("a@x.com", cap.getValue().getEmailPrefix());
+        assertEquals("65f000000000000000000002", after.getValue().getId());
+    }
+
+    @Test
+    void scroll_rejects_tampered_cursor() {
+        assertThrows(InvalidFieldException.class, () -> service.scroll(null, null, null, null, "not-a-cursor", 10));
+        verifyNoInteractions(userRepo);
     }
 }
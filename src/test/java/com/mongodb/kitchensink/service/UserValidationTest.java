@@ -0,0 +1,42 @@
+package com.mongodb.kitchensink.service;
+
+import com.mongodb.kitchensink.dto.UserResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserValidationTest {
+
+    // No repository dependency at all: every check works from the principal and the loaded view
+    private final UserValidation validation = new UserValidation();
+
+    private static Authentication auth(String email, String roles) {
+        return new UsernamePasswordAuthenticationToken(email, null, AuthorityUtils.commaSeparatedStringToAuthorityList(roles));
+    }
+
+    @Test
+    void validateAdmin_uses_principal_authorities_without_lookup() {
+        validation.validateAdmin(auth("admin@x.com", "ROLES_ADMIN"));
+        assertThrows(AccessDeniedException.class, () -> validation.validateAdmin(auth("user@x.com", "ROLES_USER")));
+    }
+
+    @Test
+    void owner_or_admin_may_read_without_lookup() {
+        UserResponse target = new UserResponse("id1", "U", "user@x.com", "9876543210");
+
+        validation.validateReadAdminOrUser(target, auth("USER@x.com", "ROLES_USER"));
+        validation.validateReadAdminOrUser(target, auth("admin@x.com", "ROLES_ADMIN"));
+        assertThrows(AccessDeniedException.class, () -> validation.validateReadAdminOrUser(target, auth("other@x.com", "ROLES_USER")));
+    }
+
+    @Test
+    void owner_scope_is_own_email_for_users_and_unrestricted_for_admins() {
+        assertEquals("user@x.com", validation.ownerScope(auth(" USER@x.com", "ROLES_USER")));
+        assertNull(validation.ownerScope(auth("admin@x.com", "ROLES_ADMIN")));
+    }
+
+}
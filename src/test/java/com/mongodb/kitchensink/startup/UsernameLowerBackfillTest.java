@@ -0,0 +1,39 @@
+package com.mongodb.kitchensink.startup;
+
+import com.mongodb.client.result.UpdateResult;
+import com.mongodb.kitchensink.model.UserInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UsernameLowerBackfillTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final UsernameLowerBackfill backfill = new UsernameLowerBackfill(mongoTemplate);
+
+    @Test
+    void skips_the_scan_once_the_marker_exists() {
+        when(mongoTemplate.exists(any(Query.class), eq(UsernameLowerBackfill.MIGRATIONS))).thenReturn(true);
+
+        backfill.run();
+
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(UserInfo.class));
+    }
+
+    @Test
+    void writes_the_marker_only_after_a_run_with_nothing_left_to_change() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(UserInfo.class)))
+                .thenReturn(UpdateResult.acknowledged(3, 3L, null), UpdateResult.acknowledged(0, 0L, null));
+
+        backfill.run();
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(UpdateDefinition.class), eq(UsernameLowerBackfill.MIGRATIONS));
+
+        backfill.run();
+        verify(mongoTemplate).upsert(any(Query.class), any(UpdateDefinition.class), eq(UsernameLowerBackfill.MIGRATIONS));
+    }
+}